@@ -0,0 +1,152 @@
+package com.example.sprintplanning;
+
+import com.example.sprintplanning.model.*;
+import javafx.animation.*;
+import javafx.application.*;
+import javafx.scene.*;
+import javafx.scene.control.*;
+import javafx.stage.*;
+
+import java.lang.management.*;
+import java.util.*;
+
+// Scrollt durch einen synthetischen, vollständig aufgeklappten Baum und misst pro Frame
+// die Zeit für CSS und Layout sowie die GC-Aktivität während der Messung.
+//
+// Aufruf: ScrollBenchmark$Launcher [Anzahl Tasks, Standard 50000] [Frames, Standard 2000]
+public class ScrollBenchmark extends Application {
+
+    private static final int WARMUP_FRAMES = 300;
+
+    // Zeilen pro Frame, damit jede Zelle jedes Mal einen neuen Task erhält
+    private static final int ROWS_PER_FRAME = 7;
+
+    private final List<Long> pulseNanos = new ArrayList<>();
+
+    private long pulseStart;
+    private int frame;
+    private long gcCount;
+    private long gcMillis;
+    private long measureStart;
+
+    @Override
+    public void start(Stage stage) {
+        List<String> args = getParameters().getRaw();
+        int taskCount = args.size() > 0 ? Integer.parseInt(args.get(0)) : 50_000;
+        int frames = args.size() > 1 ? Integer.parseInt(args.get(1)) : 2_000;
+
+        Tasks tasks = createTasks(taskCount);
+        TreeItem<Task> root = createTreeItem(tasks.getRoot());
+
+        TreeView<Task> treeView = new TreeView<>(root);
+        treeView.setShowRoot(false);
+        treeView.setCellFactory(tv -> new TaskTreeCell());
+
+        Scene scene = new Scene(treeView, 800, 600);
+        scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
+        scene.addPostLayoutPulseListener(() -> {
+            if (pulseStart != 0 && frame > WARMUP_FRAMES) {
+                pulseNanos.add(System.nanoTime() - pulseStart);
+            }
+            pulseStart = 0;
+        });
+
+        int rowCount = treeView.getExpandedItemCount();
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (frame == WARMUP_FRAMES) {
+                    measureStart = System.nanoTime();
+                    gcCount = totalGcCount();
+                    gcMillis = totalGcMillis();
+                }
+                if (frame++ == WARMUP_FRAMES + frames) {
+                    stop();
+                    report(taskCount, rowCount);
+                    Platform.exit();
+                    return;
+                }
+
+                pulseStart = System.nanoTime();
+                treeView.scrollTo(frame * ROWS_PER_FRAME % rowCount);
+            }
+        }.start();
+
+        stage.setScene(scene);
+        stage.setTitle("Scroll Benchmark");
+        stage.show();
+    }
+
+    private void report(int taskCount, int rowCount) {
+        long elapsed = System.nanoTime() - measureStart;
+        long[] sorted = pulseNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        double average = Arrays.stream(sorted).average().orElse(0);
+
+        System.out.printf("%d tasks, %d rows, %d frames in %.1f s%n", taskCount, rowCount, sorted.length, elapsed / 1e9);
+        System.out.printf("CSS + layout per frame: avg %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                average / 1e6, percentile(sorted, 50) / 1e6, percentile(sorted, 99) / 1e6, sorted[sorted.length - 1] / 1e6);
+        System.out.printf("GC: %d collections, %d ms%n", totalGcCount() - gcCount, totalGcMillis() - gcMillis);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long totalGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    // Gruppen zu je 100 Tasks mit zufälligen Flags
+    private static Tasks createTasks(int taskCount) {
+        Random random = new Random(42);
+        Flag[] styled = { Flag.DONE, Flag.IMPORTANT, Flag.URGENT, Flag.OPTIONAL, Flag.OBSOLETE };
+
+        Tasks tasks = new Tasks();
+        Task group = null;
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task("Aufgabe " + i);
+            for (Flag flag : styled) {
+                task.set(flag, random.nextInt(5) == 0);
+            }
+
+            if (i % 100 == 0) {
+                group = task;
+                tasks.getTasks().add(group);
+            } else {
+                group.addChild(task);
+            }
+        }
+        return tasks;
+    }
+
+    // Ohne Einstellungen zeigt der Filter alle Tasks
+    private static final TaskFilter NO_FILTER = new TaskFilter();
+
+    private static TreeItem<Task> createTreeItem(Task task) {
+        TreeItem<Task> item = new TaskTreeItem(task, ScrollBenchmark::createTreeItem, NO_FILTER);
+        item.setExpanded(true);
+        return item;
+    }
+
+    // Startet den Benchmark vom Classpath, eine Application-Klasse als Hauptklasse verlangt JavaFX als Modul
+    public static final class Launcher {
+
+        public static void main(String[] args) {
+            launch(ScrollBenchmark.class, args);
+        }
+
+    }
+
+}
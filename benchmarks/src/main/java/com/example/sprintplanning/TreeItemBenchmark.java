@@ -0,0 +1,77 @@
+package com.example.sprintplanning;
+
+import com.example.sprintplanning.benchmarks.*;
+import com.example.sprintplanning.model.*;
+import javafx.scene.control.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+// Aufbau der TreeItems wie im Controller; liegt im Paket der Anwendung, da TaskTreeItem paketintern ist
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TreeItemBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"WIDE", "BALANCED", "DEEP"})
+    PlanGenerator.Shape shape;
+
+    private Task root;
+
+    private static final TaskFilter filter = new TaskFilter();
+
+    // Vollständig aufgeklappte Items für filterDone
+    private TaskTreeItem expanded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        root = PlanGenerator.generate(size, shape, 0.2, 42).getRoot();
+        expanded = (TaskTreeItem) createTreeItem(root);
+        count(expanded, false);
+    }
+
+    // Alle Items, wie nach "Alle aufklappen"
+    @Benchmark
+    public int expandAll() {
+        return count(createTreeItem(root), false);
+    }
+
+    // Nur die Items, die ein TreeView mit den gespeicherten Open-Flags anlegt
+    @Benchmark
+    public int expandOpen() {
+        return count(createTreeItem(root), true);
+    }
+
+    // Erledigte aus- bzw. wieder einblenden, ohne die Items neu aufzubauen
+    @Benchmark
+    public int filterDone() {
+        filter.setHidden(Flag.DONE, !filter.isActive());
+        filter.apply(root);
+        expanded.refilter(true);
+        return expanded.getChildren().size();
+    }
+
+    private static int count(TreeItem<Task> item, boolean onlyExpanded) {
+        int count = 1;
+        if (!onlyExpanded || item.isExpanded()) {
+            for (TreeItem<Task> child : item.getChildren()) {
+                count += count(child, onlyExpanded);
+            }
+        }
+        return count;
+    }
+
+    private static TreeItem<Task> createTreeItem(Task task) {
+        TreeItem<Task> item = new TaskTreeItem(task, TreeItemBenchmark::createTreeItem, filter);
+        item.setExpanded(task.isOpen());
+        item.expandedProperty().addListener((observable, wasExpanded, isExpanded) -> task.setOpen(isExpanded));
+        return item;
+    }
+
+}
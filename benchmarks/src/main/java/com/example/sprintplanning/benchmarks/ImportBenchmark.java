@@ -0,0 +1,41 @@
+package com.example.sprintplanning.benchmarks;
+
+import com.example.sprintplanning.exporter.*;
+import com.example.sprintplanning.importer.*;
+import com.example.sprintplanning.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+// Markdown-Import ohne Dateisystem: der Text wird einmal vom Exporter erzeugt
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ImportBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"WIDE", "BALANCED", "DEEP"})
+    PlanGenerator.Shape shape;
+
+    private String markdown;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StringWriter out = new StringWriter();
+        MarkdownExporter exporter = new MarkdownExporter(out, MarkdownExporter.Format.MARKDOWN);
+        exporter.writeWeek(PlanGenerator.generate(size, shape, 0.2, 42));
+        markdown = out.toString();
+    }
+
+    @Benchmark
+    public Tasks parse() throws IOException {
+        return MarkdownImporter.parseMarkdown(new BufferedReader(new StringReader(markdown)));
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.sprintplanning.benchmarks;
+
+import com.example.sprintplanning.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+// Laden und Speichern einer Woche mit beiden Codecs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"WIDE", "BALANCED", "DEEP"})
+    PlanGenerator.Shape shape;
+
+    @Param({"stax", "jaxb"})
+    String codec;
+
+    // Mit Cache liest load() die Binärdatei neben dem XML
+    @Param({"true", "false"})
+    boolean binaryCache;
+
+    private Path folder;
+    private File weekFile;
+    private SprintPlanningModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("sprintplanning.binaryCache", String.valueOf(binaryCache));
+        TaskCodec taskCodec = codec.equals("jaxb") ? new JaxbTaskCodec() : new StaxTaskCodec();
+        folder = Files.createTempDirectory("sprint-planning-benchmark");
+        weekFile = folder.resolve("2025-01-06.xml").toFile();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(weekFile))) {
+            taskCodec.write(PlanGenerator.generate(size, shape, 0.2, 42), out);
+        }
+
+        model = new SprintPlanningModel(taskCodec);
+        model.loadWeekPlan(weekFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Der Teil von loadWeekPlan, der bei einem Fehlschlag im WeekCache anfällt
+    @Benchmark
+    public Tasks load() throws IOException {
+        return model.readWeek(weekFile);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        model.saveWeekPlan();
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.sprintplanning.benchmarks;
+
+import com.example.sprintplanning.model.*;
+
+import java.util.*;
+
+// Synthetic week plans of a given size and shape, reproducible through the seed
+public final class PlanGenerator {
+
+    public enum Shape {
+        // Alle Tasks auf der obersten Ebene
+        WIDE(Integer.MAX_VALUE, 1),
+        // Bis zu 10 Kinder je Task, 6 Ebenen
+        BALANCED(10, 6),
+        // Bis zu 3 Kinder je Task, 30 Ebenen
+        DEEP(3, 30);
+
+        final int fanOut;
+        final int maxDepth;
+
+        Shape(int fanOut, int maxDepth) {
+            this.fanOut = fanOut;
+            this.maxDepth = maxDepth;
+        }
+    }
+
+    private static final String[] WORDS = {
+            "Review", "Release", "Meeting", "Konzept", "Bugfix", "Tests", "Doku", "Deployment", "Planung", "Abstimmung"
+    };
+
+    private static final Flag[] FLAGS = Flag.values();
+
+    private PlanGenerator() {
+    }
+
+    public static Tasks generate(int size, Shape shape, double flagRate, long seed) {
+        return generate(size, shape.fanOut, shape.maxDepth, flagRate, seed);
+    }
+
+    // Depth-first: every task gets fanOut children until maxDepth is reached, the top level is unbounded
+    public static Tasks generate(int size, int fanOut, int maxDepth, double flagRate, long seed) {
+        Random random = new Random(seed);
+        Tasks tasks = new Tasks();
+        Task root = tasks.getRoot();
+
+        // Der Stack enthält den Pfad von der Wurzel zum zuletzt erzeugten Task
+        Deque<Task> path = new ArrayDeque<>();
+        path.push(root);
+        int created = 0;
+        while (created < size) {
+            Task parent = path.peek();
+            if (parent == root || (path.size() <= maxDepth && parent.getChildren().size() < fanOut)) {
+                Task task = createTask(random, created++, flagRate);
+                parent.addChild(task);
+                path.push(task);
+            } else {
+                path.pop();
+            }
+        }
+        return tasks;
+    }
+
+    private static Task createTask(Random random, int number, double flagRate) {
+        Task task = new Task(WORDS[random.nextInt(WORDS.length)] + " " + number);
+        for (Flag flag : FLAGS) {
+            task.set(flag, random.nextDouble() < flagRate);
+        }
+        return task;
+    }
+
+}
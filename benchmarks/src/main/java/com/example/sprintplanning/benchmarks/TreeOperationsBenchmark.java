@@ -0,0 +1,74 @@
+package com.example.sprintplanning.benchmarks;
+
+import com.example.sprintplanning.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+// Die Baumoperationen des Controllers auf Ebene der Edits; jedes Paar stellt den Ausgangszustand wieder her
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TreeOperationsBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    int size;
+
+    @Param({"WIDE", "BALANCED", "DEEP"})
+    PlanGenerator.Shape shape;
+
+    private Task root;
+    private Task target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        root = PlanGenerator.generate(size, shape, 0.2, 42).getRoot();
+
+        // Über die mittleren Kinder bis zu einem Blatt, dann der nächste Task mit einem Vorgänger
+        target = root;
+        while (!target.getChildren().isEmpty()) {
+            target = target.getChildren().get(target.getChildren().size() / 2);
+        }
+        while (target.getIndex() == 0 && target.getParent() != root) {
+            target = target.getParent();
+        }
+    }
+
+    @Benchmark
+    public int[] path() {
+        return target.getPath();
+    }
+
+    @Benchmark
+    public void indentOutdent() {
+        Edit.indent(target.getPath()).applyTo(root);
+        Edit.outdent(target.getPath()).applyTo(root);
+    }
+
+    @Benchmark
+    public void moveUpDown() {
+        Edit.moveUp(target.getPath()).applyTo(root);
+        Edit.moveDown(target.getPath()).applyTo(root);
+    }
+
+    @Benchmark
+    public void deleteInsert() {
+        Task parent = target.getParent();
+        int index = target.getIndex();
+        Edit.delete(target.getPath()).applyTo(root);
+        parent.addChild(index, target);
+    }
+
+    @Benchmark
+    public void newDelete() {
+        int[] parentPath = target.getParent().getPath();
+        Edit.newTask(parentPath, "Neue Aufgabe").applyTo(root);
+        int[] path = target.getPath();
+        path[path.length - 1] = target.getParent().getChildren().size() - 1;
+        Edit.delete(path).applyTo(root);
+    }
+
+}
@@ -8,14 +8,29 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.*;
 
+import java.time.*;
+import java.util.concurrent.*;
+
 public class SprintPlanning extends Application {
 
+    // -Dsprintplanning.exitAfterStartup=true misst die Startzeit und beendet die Anwendung, sobald sie bedienbar ist,
+    // z.B. für Messungen oder um ein AppCDS-Archiv zu erzeugen (siehe Profil appcds in der pom.xml)
+    private static final boolean EXIT_AFTER_STARTUP = Boolean.getBoolean("sprintplanning.exitAfterStartup");
+
     // UI-Controls
     ListView<String> weekListView;
     TreeView<Task> taskTreeView;
     Button btnNew, btnDelete, btnIndent, btnOutdent;
     Button btnMoveUp, btnMoveDown;
     Button btnImportant, btnUrgent, btnDone, btnOptional, btnObsolete;
+    Button btnExpandAll, btnCollapseAll, btnDoneAll, btnDeleteChildren;
+    ToggleButton btnHideDone, btnHideOptional, btnHideObsolete;
+    TextField filterField;
+
+    private SprintPlanningController controller;
+
+    // Zeitpunkt des ersten Frames, nur bei EXIT_AFTER_STARTUP gemessen
+    private Instant firstFrame;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -33,24 +48,40 @@ public class SprintPlanning extends Application {
         btnDone        = new Button("✔");
         btnOptional    = new Button("∘");
         btnObsolete    = new Button("\uD83D\uDEAB");
+        btnExpandAll   = new Button("⊞");
+        btnCollapseAll = new Button("⊟");
+        btnDoneAll     = new Button("☑");
+        btnDeleteChildren = new Button("\uD83D\uDDD1");
+        btnHideDone    = new ToggleButton("✔ erledigt");
+        btnHideOptional = new ToggleButton("∘ optional");
+        btnHideObsolete = new ToggleButton("\uD83D\uDEAB obsolet");
+        filterField    = new TextField();
 
         // 2. Configure Controls
         weekListView.setPrefWidth(150);
         taskTreeView.setShowRoot(false);
         taskTreeView.setEditable(true);
+        filterField.setPromptText("Filter");
 
         // 3. Layout: Toolbar
         HBox toolbar = new HBox(5,
                 btnNew, btnDelete,
                 btnIndent, btnOutdent,
                 btnMoveUp, btnMoveDown,
-                btnImportant, btnUrgent, btnOptional, btnObsolete, btnDone
+                btnImportant, btnUrgent, btnOptional, btnObsolete, btnDone,
+                btnExpandAll, btnCollapseAll, btnDoneAll, btnDeleteChildren
         );
         toolbar.setPadding(new Insets(5));
         toolbar.setStyle("-fx-background-color: #EEE;");
 
-        // 4. Layout: Center with toolbar + TreeView
-        VBox centerBox = new VBox(5, toolbar);
+        // Filterleiste: ausgeblendete Flags und Suchtext
+        HBox filterBar = new HBox(5, new Label("Ausblenden:"), btnHideDone, btnHideOptional, btnHideObsolete, filterField);
+        filterBar.setAlignment(Pos.CENTER_LEFT);
+        filterBar.setPadding(new Insets(0, 5, 0, 5));
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+
+        // 4. Layout: Center with toolbar + filter bar + TreeView
+        VBox centerBox = new VBox(5, toolbar, filterBar);
         VBox.setVgrow(taskTreeView, Priority.ALWAYS);
         centerBox.getChildren().add(taskTreeView);
 
@@ -65,13 +96,45 @@ public class SprintPlanning extends Application {
         // 6. Scene & Stage
         Scene scene = new Scene(root, 800, 600);
         scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
-
-        SprintPlanningModel model = new SprintPlanningModel();
-        new SprintPlanningController(this, model);
+        if (EXIT_AFTER_STARTUP) {
+            scene.addPostLayoutPulseListener(new Runnable() {
+                @Override
+                public void run() {
+                    firstFrame = Instant.now();
+                    scene.removePostLayoutPulseListener(this);
+                }
+            });
+        }
 
         primaryStage.setScene(scene);
         primaryStage.setTitle("Sprint Planning");
         primaryStage.show();
+
+        // Das Fenster erscheint sofort, das Model entsteht im Hintergrund
+        CompletableFuture.supplyAsync(SprintPlanningModel::new)
+                .thenAcceptAsync(model -> controller = new SprintPlanningController(this, model), Platform::runLater)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return null;
+                });
+    }
+
+    // Called by the controller once the week list and the last opened week are shown
+    void startupFinished() {
+        if (!EXIT_AFTER_STARTUP) return;
+
+        Instant interactive = Instant.now();
+        ProcessHandle.current().info().startInstant().ifPresent(start -> System.out.println("Startup: first frame after "
+                + (firstFrame != null ? Duration.between(start, firstFrame).toMillis() : -1) + " ms, interactive after "
+                + Duration.between(start, interactive).toMillis() + " ms"));
+        Platform.exit();
+    }
+
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.close();
+        }
     }
 
     public static void main(String[] args) {
@@ -1,30 +1,76 @@
 package com.example.sprintplanning;
 
+import com.example.sprintplanning.exporter.*;
 import com.example.sprintplanning.model.*;
-import de.jensd.fx.glyphs.fontawesome.*;
-import jakarta.xml.bind.*;
+import javafx.application.*;
+import javafx.collections.*;
 import javafx.event.*;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.*;
 import javafx.scene.input.*;
 
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 
 public class SprintPlanningController {
 
     private static final File FOLDER = new File("planning");
 
+    // Name der beim Beenden angezeigten Woche, sie wird beim nächsten Start wieder geöffnet
+    private static final File LAST_WEEK = new File(FOLDER, ".last-week");
+
     private final SprintPlanning view;
 
     private final SprintPlanningModel model;
 
+    private final SaveScheduler saveScheduler;
+
+    private final WeekCatalog catalog;
+
+    private final SearchIndex searchIndex;
+
+    // Zuletzt ausgewählte Woche, deren Laden noch aussteht
+    private File selectedWeek;
+
+    // Woche, deren Tasks gerade angezeigt werden
+    private File shownWeek;
+
+    // Ausgeblendete Tasks, gilt für jede angezeigte Woche
+    private final TaskFilter filter = new TaskFilter();
+
+    // Eltern, deren Kinder nach der laufenden Änderung neu gefiltert werden, jeder nur einmal
+    private final Set<Task> refilterParents = new LinkedHashSet<>();
+
+    // Zellen, die gerade einen Task anzeigen
+    private final Map<Task, TaskTreeCell> visibleCells = new HashMap<>();
+
+    // Der Start ist abgeschlossen, wenn die Wochen aufgelistet sind und die letzte Woche angezeigt wird
+    private boolean weeksListed;
+    private boolean lastWeekShown;
+    private boolean started;
+
     public SprintPlanningController(SprintPlanning view, SprintPlanningModel model) {
         this.view = view;
         this.model = model;
 
+        saveScheduler = new SaveScheduler(model, Platform::runLater);
+        catalog = new WeekCatalog(FOLDER.toPath(), Platform::runLater, this::onWeeksChanged);
+
+        searchIndex = new SearchIndex(new File(FOLDER, ".search-index").toPath());
+        model.setSearchIndex(searchIndex);
+        model.setTaskListener(this::onTaskChanged);
+
         // Event bindings
         view.weekListView.setOnMouseClicked(this::onWeekSelected);
+        view.weekListView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String week, boolean empty) {
+                super.updateItem(week, empty);
+                setText(empty || week == null ? null : week + weekSummary(week));
+            }
+        });
 
         view.btnNew.setOnAction(this::onNewTask);
         view.btnDelete.setOnAction(this::onDeleteTask);
@@ -37,28 +83,30 @@ public class SprintPlanningController {
         view.btnDone.setOnAction(this::onToggleDone);
         view.btnOptional.setOnAction(this::onToggleOptional);
         view.btnObsolete.setOnAction(this::onToggleObsolete);
+        view.btnExpandAll.setOnAction(event -> onExpandAll(true));
+        view.btnCollapseAll.setOnAction(event -> onExpandAll(false));
+        view.btnDoneAll.setOnAction(this::onMarkSubtreeDone);
+        view.btnDeleteChildren.setOnAction(this::onDeleteChildren);
 
+        view.btnHideDone.setOnAction(event -> onFilterChanged());
+        view.btnHideOptional.setOnAction(event -> onFilterChanged());
+        view.btnHideObsolete.setOnAction(event -> onFilterChanged());
+        view.filterField.textProperty().addListener((obs, oldText, newText) -> onFilterChanged());
 
 
         view.taskTreeView.setOnEditCommit(this::onTaskRename);
         view.taskTreeView.setEditable(true);
+        view.taskTreeView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         view.taskTreeView.setCellFactory(tv -> {
-            TextFieldTreeCell<Task> cell = new TextFieldTreeCell<>(new TaskStringConverter()) {
-                @Override
-                public void commitEdit(Task newValue) {
-                    Task oldValue = getItem();
-//                    System.out.println("commitEdit(" + newValue.getText() + ") = " + System.identityHashCode(oldValue) + " -> " + System.identityHashCode(newValue));
-                    oldValue.setText(newValue.getText());
-                    super.commitEdit(oldValue);
-                }
-            };
+            TaskTreeCell cell = new TaskTreeCell();
 
             cell.itemProperty().addListener((obs, oldTask, newTask) -> {
+                if (oldTask != null) {
+                    visibleCells.remove(oldTask, cell);
+                }
                 if (newTask != null) {
 //                    System.out.println("cell.item(" + newTask.getText() + ") = " + System.identityHashCode(oldTask) + " -> " + System.identityHashCode(newTask));
-                    cell.setStyle(getStyle(newTask));
-                } else {
-                    cell.setStyle("");
+                    visibleCells.put(newTask, cell);
                 }
             });
 
@@ -66,52 +114,144 @@ public class SprintPlanningController {
         });
 
         view.taskTreeView.setOnKeyPressed(event -> {
-            if (event.isControlDown() && event.getCode() == KeyCode.C) {
-                TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-                if (selected != null) {
-                    String fullPathText = buildFullTaskText(selected);
+            if (event.isControlDown() && event.isShiftDown() && event.getCode() == KeyCode.C) {
+                // Ausgewählte Teilbäume (oder die ganze Woche) als Markdown
+                copyAsMarkdown();
+                event.consume();
+            } else if (event.isControlDown() && event.getCode() == KeyCode.C) {
+                List<TreeItem<Task>> selected = selectedItems();
+                if (!selected.isEmpty()) {
+                    StringJoiner fullPathText = new StringJoiner("\n");
+                    selected.forEach(item -> fullPathText.add(buildFullTaskText(item)));
                     Clipboard clipboard = Clipboard.getSystemClipboard();
                     ClipboardContent content = new ClipboardContent();
-                    content.putString(fullPathText);
+                    content.putString(fullPathText.toString());
                     clipboard.setContent(content);
                     event.consume(); // Verhindert Standardverhalten
                 }
             }
         });
 
+        // Codec, Ordner und letzte Woche werden gleichzeitig im Hintergrund vorbereitet
+        model.prepare().exceptionally(e -> {
+            e.printStackTrace();
+            return null;
+        });
         loadWeekPlans();
+        restoreLastWeek();
     }
 
-    private static String getStyle(Task newTask) {
-        StringBuilder style = new StringBuilder();
+    public void loadWeekPlans() {
+        if (FOLDER.exists() && FOLDER.isDirectory()) {
+            try {
+                // Der Katalog liefert den Inhalt des Ordners und spätere Änderungen über onWeeksChanged
+                catalog.start();
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        weeksListed = true;
+    }
+
+    private void restoreLastWeek() {
+        CompletableFuture.supplyAsync(SprintPlanningController::readLastWeek)
+                .thenCompose(file -> file != null
+                        ? model.prefetch(file).thenApply(result -> file)
+                        : CompletableFuture.completedFuture(null))
+                .whenComplete((file, e) -> Platform.runLater(() -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                    }
+                    // Nur, wenn der Benutzer noch keine andere Woche gewählt hat
+                    if (file != null && selectedWeek == null) {
+                        selectedWeek = file;
+                        showWeek(file);
+                        view.weekListView.getSelectionModel().select(file.getName());
+                    }
+                    lastWeekShown = true;
+                    checkStarted();
+                }));
+    }
+
+    private static File readLastWeek() {
+        if (!LAST_WEEK.isFile()) return null;
+
+        try {
+            File file = new File(FOLDER, Files.readString(LAST_WEEK.toPath()).strip());
+            return WeekArchive.exists(file) ? file : null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-        if (newTask.isUrgent()) {
-            style.append("-fx-underline: true;");
+    private void checkStarted() {
+        if (weeksListed && lastWeekShown && !started) {
+            started = true;
+            view.startupFinished();
         }
+    }
+
+    private void onWeeksChanged(WeekCatalog.Change change) {
+        updateSearchIndex(change);
 
-        if (newTask.isObsolete()) {
-            style.append("-fx-text-fill: red;");
-        } else if (newTask.isOptional()) {
-            style.append("-fx-text-fill: grey;");
-        } else if (newTask.isImportant()) {
-            style.append("-fx-text-fill: blue;");
+        ObservableList<String> items = view.weekListView.getItems();
+
+        if (items.isEmpty()) {
+            items.setAll(change.added());
         } else {
-            style.append("-fx-text-fill: black;");
+            items.removeAll(change.removed());
+
+            // Liste bleibt nach Datum sortiert
+            for (String name : change.added()) {
+                int index = Collections.binarySearch(items, name);
+                if (index < 0) {
+                    items.add(-index - 1, name);
+                }
+            }
         }
 
-        return style.toString();
+        if (shownWeek != null && change.modified().contains(shownWeek.getName())) {
+            checkExternalChange();
+        }
+
+        if (!weeksListed) {
+            weeksListed = true;
+            if (selectedWeek != null) {
+                view.weekListView.getSelectionModel().select(selectedWeek.getName());
+            }
+            checkStarted();
+        }
     }
 
-    public void loadWeekPlans() {
-        if (FOLDER.exists() && FOLDER.isDirectory()) {
-            File[] files = FOLDER.listFiles((dir, name) -> name.endsWith(".xml"));
-            if (files != null) {
-                view.weekListView.getItems().clear();
-                for (File file : files) {
-                    view.weekListView.getItems().add(file.getName());
-                }
+    private void updateSearchIndex(WeekCatalog.Change change) {
+        change.removed().forEach(searchIndex::remove);
+
+        List<File> added = new ArrayList<>();
+        for (String name : change.added()) {
+            added.add(new File(FOLDER, name));
+        }
+        for (String name : change.modified()) {
+            // Die angezeigte Woche indiziert das Model beim Wechsel, ihr Journal ändert sich bei jeder Bearbeitung
+            if (shownWeek == null || !shownWeek.getName().equals(name)) {
+                added.add(new File(FOLDER, name));
             }
         }
+        // Nur geänderte Wochen werden neu gelesen, der Rest kommt aus der Index-Datei
+        CompletableFuture.runAsync(() -> searchIndex.build(added, model::readWeek))
+                .thenRun(() -> Platform.runLater(view.weekListView::refresh));
+    }
+
+    // Fortschritt der angezeigten Woche aus dem Model, der übrigen aus dem Suchindex, z.B. "  7/12 ✔  2 🔻"
+    private String weekSummary(String week) {
+        Progress progress = shownWeek != null && shownWeek.getName().equals(week)
+                ? model.getRoot().getProgress()
+                : searchIndex.getProgress(week);
+        if (progress == null || progress.tasks() == 0) return "";
+
+        String summary = "  " + progress.done() + "/" + progress.tasks() + " ✔";
+        return progress.urgent() > 0 ? summary + "  " + progress.urgent() + " 🔻" : summary;
     }
 
     // Controller methods for Use Cases
@@ -121,281 +261,463 @@ public class SprintPlanningController {
         if (selectedFile == null) return;
 
         File file = new File(FOLDER, selectedFile);
+        selectedWeek = file;
+
+        // Im Hintergrund parsen (oder aus dem Cache nehmen), danach auf dem FX-Thread anzeigen
+        model.prefetch(file).whenComplete((result, e) -> Platform.runLater(() -> {
+            if (file.equals(selectedWeek)) {
+                showWeek(file);
+            }
+        }));
+    }
+
+    private void showWeek(File file) {
         try {
-            model.loadWeekPlan(file.getPath());
+            // Ausstehende Änderungen der bisherigen Woche sichern
+            saveScheduler.flush();
 
-            List<Task> tasks = model.getTasks();
+            model.loadWeekPlan(file.getPath());
 
-            TreeItem<Task> root = new TreeItem<>(new Task("Root", tasks));
+            // Kind-Knoten werden erst beim Aufklappen erzeugt
+            filter.apply(model.getRoot());
+            TreeItem<Task> root = new TaskTreeItem(model.getRoot(), this::createTreeItem, filter);
             root.setExpanded(true);
 
-            for (Task task : tasks) {
-                root.getChildren().add(createTreeItem(task));
-            }
-
             view.taskTreeView.setRoot(root);
             view.taskTreeView.setShowRoot(false);
+
+            shownWeek = file;
+            view.weekListView.refresh();
+            showConflicts(model.getConflicts());
+
+            // Vorherige und nächste Woche schon einmal parsen
+            model.prefetchAdjacent();
         } catch (Exception e) {
+            if (e instanceof Journal.LockedException) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Woche geöffnet");
+                alert.setHeaderText(file.getName() + " ist in einem anderen Programm geöffnet");
+                alert.setContentText("Die Woche lässt sich bearbeiten, sobald sie dort geschlossen ist.");
+                alert.show();
+            } else {
+                e.printStackTrace();
+            }
+
+            // Scheitert das Laden, hat das Model keine Woche mehr
+            if (model.getRoot() == null) {
+                view.taskTreeView.setRoot(null);
+                shownWeek = null;
+                view.weekListView.refresh();
+            }
+        }
+    }
+
+    // Hat ein anderes Programm das XML der angezeigten Woche geschrieben, wird es im Hintergrund gelesen
+    // und nur der Unterschied übernommen; eigene Speichervorgänge erkennt das Model und meldet sie nicht
+    private void checkExternalChange() {
+        try {
+            if (!model.isChangedExternally()) return;
+        } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
+
+        File week = shownWeek;
+        model.readExternalChange().whenComplete((change, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                e.printStackTrace();
+            } else if (week.equals(shownWeek)) {
+                reload(change);
+            }
+        }));
     }
 
-    public void onNewTask(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
+    private void reload(SprintPlanningModel.ExternalChange change) {
+        SprintPlanningModel.Reload reload;
+        try {
+            // Ein laufendes Speichern muss abgeschlossen sein, sonst fehlen dessen Änderungen im Journal
+            saveScheduler.awaitIdle();
+            reload = model.reload(change, new TreeDiff.Listener() {
+                @Override
+                public void added(Task parent, int index) {
+                    TaskTreeItem item = loadedItem(parent);
+                    if (item != null && item.isChildrenLoaded()) {
+                        children(item).add(index, createTreeItem(parent.getChildren().get(index)));
+                    }
+                }
 
-        TreeItem<Task> parent;
-        if (selected == null) {
-            parent = view.taskTreeView.getRoot();
-        } else {
-            parent = selected;
+                @Override
+                public void removed(Task parent, int index) {
+                    TaskTreeItem item = loadedItem(parent);
+                    if (item != null && item.isChildrenLoaded()) {
+                        children(item).remove(index);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
         }
+        if (reload == null) return;
 
-        Task newTask = new Task("Neue Aufgabe");
-        TreeItem<Task> newItem = createTreeItem(newTask);
+        // Ausgeblendete Tasks neu bestimmen, neue und entfernte sind dem Filter nicht bekannt
+        refilterParents.clear();
+        onFilterChanged();
+        view.weekListView.refresh();
 
-        parent.getValue().getChildren().add(newTask);   // Model ergänzen
-        parent.getChildren().add(newItem);              // TreeView ergänzen
-        parent.setExpanded(true);
+        showConflicts(reload.conflicts());
+    }
 
-        view.taskTreeView.getSelectionModel().select(newItem);
+    // Lokale Änderungen, die nach einer Änderung durch ein anderes Programm verworfen wurden
+    private void showConflicts(List<Edit> conflicts) {
+        if (conflicts.isEmpty()) return;
 
-        save();
+        StringJoiner lines = new StringJoiner("\n");
+        conflicts.forEach(edit -> lines.add(edit.encode()));
+
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Externe Änderung");
+        alert.setHeaderText(shownWeek.getName() + " wurde von einem anderen Programm geändert");
+        alert.setContentText(conflicts.size() + " lokale Änderungen ließen sich nicht übernehmen:\n" + lines);
+        alert.show();
     }
 
-    public void onDeleteTask(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
+    public void onNewTask(ActionEvent event) {
+        batch(() -> {
+            TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
+
+            TreeItem<Task> parent;
+            if (selected == null) {
+                parent = view.taskTreeView.getRoot();
+            } else {
+                parent = selected;
+            }
 
-        if (selected == null || selected.getParent() == null) {
-            // Kein Eintrag oder Root ausgewählt
-            return;
-        }
+            // Kinder ggf. noch aus dem unveränderten Model erzeugen
+            List<TreeItem<Task>> children = children(parent);
 
-        TreeItem<Task> parentItem = selected.getParent();
-        Task parentTask = parentItem.getValue();
-        Task selectedTask = selected.getValue();
+            edit(Edit.newTask(pathOf(parent), "Neue Aufgabe"));   // Model ergänzen
+
+            List<Task> siblingTasks = parent.getValue().getChildren();
+            Task newTask = siblingTasks.get(siblingTasks.size() - 1);
+            TreeItem<Task> newItem = createTreeItem(newTask);
+            children.add(newItem);                              // TreeView ergänzen
+            parent.setExpanded(true);
+
+            view.taskTreeView.getSelectionModel().select(newItem);
+        });
+    }
+
+    public void onDeleteTask(ActionEvent event) {
+        List<TreeItem<Task>> selected = selectedItems();
+
+        // Unter einem anderen ausgewählten Eintrag wird ohnehin mitgelöscht
+        Set<TreeItem<Task>> selectedSet = new HashSet<>(selected);
+        selected.removeIf(item -> hasSelectedAncestor(item, selectedSet));
+        if (selected.isEmpty()) return;
 
         // Bestimme neuen Auswahlknoten
-        int index = parentItem.getChildren().indexOf(selected);
-        int totalSiblings = parentItem.getChildren().size();
+        TreeItem<Task> parentItem = selected.get(0).getParent();
+        int index = selected.get(0).getValue().getIndex();
 
-        // Entferne aus Model
-        parentTask.getChildren().remove(selectedTask);
+        batch(() -> {
+            // Von hinten, damit die Pfade der übrigen gültig bleiben
+            for (int i = selected.size() - 1; i >= 0; i--) {
+                TreeItem<Task> item = selected.get(i);
+                int itemIndex = item.getValue().getIndex();
 
-        // Entferne aus TreeView
-        parentItem.getChildren().remove(selected);
+                // Entferne aus Model
+                edit(Edit.delete(pathOf(item)));
 
-        // Auswahl auf den nächsten oder vorherigen Eintrag oder Parent setzen
-        TreeItem<Task> newSelected = null;
-        if (index < totalSiblings - 1) {
-            newSelected = parentItem.getChildren().get(index);
-        } else if (index > 0) {
-            newSelected = parentItem.getChildren().get(index - 1);
-        } else {
-            newSelected = parentItem;
-        }
+                // Entferne aus TreeView
+                children(item.getParent()).remove(itemIndex);
+            }
+        });
 
-        view.taskTreeView.getSelectionModel().select(newSelected);
+        // Auswahl auf den nächsten oder vorherigen angezeigten Eintrag oder Parent setzen
+        TreeItem<Task> newSelected = parentItem;
+        for (TreeItem<Task> sibling : parentItem.getChildren()) {
+            newSelected = sibling;
+            if (sibling.getValue().getIndex() >= index) break;
+        }
 
-        save();
+        select(List.of(newSelected));
     }
 
     public void onIndentTask(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected == null) return;
+        List<TreeItem<Task>> selected = selectedItems();
+
+        // Von oben nach unten, so landen benachbarte Einträge gemeinsam unter demselben Vorgänger
+        batch(() -> selected.forEach(this::indent));
 
+        // Fokus zurück auf verschobene Knoten
+        select(selected);
+    }
+
+    private void indent(TreeItem<Task> selected) {
         TreeItem<Task> parent = selected.getParent();
         if (parent == null) return;
 
-        int index = parent.getChildren().indexOf(selected);
+        int index = selected.getValue().getIndex();
         if (index <= 0) return; // Kein vorheriges Geschwister
 
-        TreeItem<Task> prevSibling = parent.getChildren().get(index - 1);
-        Task prevTask = prevSibling.getValue();
+        TreeItem<Task> prevSibling = children(parent).get(index - 1);
+        int[] path = pathOf(selected);
 
-        // Schritt 1: Kinder des selektierten Knotens sichern
-        List<TreeItem<Task>> childrenToDetach = new ArrayList<>(selected.getChildren());
-        List<Task> childrenModel = new ArrayList<>(selected.getValue().getChildren());
+        // Die TreeItems werden vor dem Model angepasst, damit noch nicht erzeugte Kinder
+        // aus dem unveränderten Model entstehen
 
-        // Schritt 2: Entferne Kinder aus dem selektierten Knoten
-        selected.getChildren().clear();
-        selected.getValue().getChildren().clear();
+        // Schritt 1: Kinder des selektierten Knotens sichern und entfernen
+        List<TreeItem<Task>> childrenToDetach = new ArrayList<>(children(selected));
+        children(selected).clear();
 
-        // Schritt 3: Entferne selektierten Knoten aus Parent
-        parent.getChildren().remove(selected);
-        parent.getValue().getChildren().remove(selected.getValue());
-
-        // Schritt 4: Hänge selektierten Knoten als Kind an vorheriges Geschwister
-        prevSibling.getChildren().add(selected);
-        prevTask.getChildren().add(selected.getValue());
-        prevSibling.setExpanded(true);
+        // Schritt 2: Entferne selektierten Knoten aus Parent
+        children(parent).remove(index);
 
-        // Schritt 5: Hänge die ehemaligen Kinder des selektierten Knotens nun **nach** dem selektierten Knoten beim neuen Parent ein
-        int insertIndex = prevTask.getChildren().indexOf(selected.getValue()) + 1;
-        prevTask.getChildren().addAll(insertIndex, childrenModel);
-        prevSibling.getChildren().addAll(insertIndex, childrenToDetach);
+        // Schritt 3: Hänge selektierten Knoten und danach seine ehemaligen Kinder an vorheriges Geschwister
+        children(prevSibling).add(selected);
+        children(prevSibling).addAll(childrenToDetach);
 
-        // Fokus zurück auf verschobenen Knoten
-        view.taskTreeView.getSelectionModel().select(selected);
-        save();
+        // Schritt 4: Model anpassen
+        edit(Edit.indent(path));
+        prevSibling.setExpanded(true);
     }
 
     public void onOutdentTask(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected == null) return;
+        List<TreeItem<Task>> selected = selectedItems();
+
+        batch(() -> selected.forEach(this::outdent));
 
+        select(selected);
+    }
+
+    private void outdent(TreeItem<Task> selected) {
         TreeItem<Task> parent = selected.getParent();
         if (parent == null || parent.getParent() == null) return;
 
         TreeItem<Task> grandParent = parent.getParent();
-        Task selectedTask = selected.getValue();
-        Task parentTask = parent.getValue();
 
-        int index = parent.getChildren().indexOf(selected);
+        int index = selected.getValue().getIndex();
+        int[] path = pathOf(selected);
 
         // 1. Sammle alle nachfolgenden Geschwister (die unter dem verschobenen Knoten stehen)
-        List<TreeItem<Task>> trailingSiblings = new ArrayList<>();
-        List<Task> trailingTasks = new ArrayList<>();
-
-        for (int i = index + 1; i < parent.getChildren().size(); i++) {
-            TreeItem<Task> item = parent.getChildren().get(i);
-            trailingSiblings.add(item);
-            trailingTasks.add(item.getValue());
-        }
+        ObservableList<TreeItem<Task>> siblings = children(parent);
+        List<TreeItem<Task>> trailingSiblings = new ArrayList<>(siblings.subList(index + 1, siblings.size()));
 
-        // 2. Entferne die nachfolgenden aus der alten Ebene
-        parent.getChildren().removeAll(trailingSiblings);
-        parentTask.getChildren().removeAll(trailingTasks);
+        // 2. Entferne die nachfolgenden und den selektierten Knoten aus der alten Ebene
+        siblings.remove(index, siblings.size());
 
-        // 3. Entferne den selektierten Knoten aus der alten Ebene
-        parent.getChildren().remove(selected);
-        parentTask.getChildren().remove(selectedTask);
+        // 3. Füge den selektierten Knoten beim Grandparent ein (hinter Parent)
+        int parentIndex = parent.getValue().getIndex();
+        children(grandParent).add(parentIndex + 1, selected);
 
-        // 4. Füge den selektierten Knoten beim Grandparent ein (hinter Parent)
-        int parentIndex = grandParent.getChildren().indexOf(parent);
-        grandParent.getChildren().add(parentIndex + 1, selected);
-        grandParent.getValue().getChildren().add(parentIndex + 1, selectedTask);
+        // 4. Hänge die "Nachfolger" als Kinder unter den selektierten Knoten
+        children(selected).addAll(trailingSiblings);
 
-        // 5. Hänge die "Nachfolger" als Kinder unter den selektierten Knoten
-        selected.getChildren().addAll(trailingSiblings);
-        selectedTask.getChildren().addAll(trailingTasks);
+        // 5. Model erst danach anpassen (siehe indent)
+        edit(Edit.outdent(path));
         selected.setExpanded(true);
-
-        view.taskTreeView.getSelectionModel().select(selected);
-        save();
     }
 
     public void onMoveUp(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected == null || selected.getParent() == null) return;
+        List<TreeItem<Task>> selected = selectedItems();
+        Set<TreeItem<Task>> selectedSet = new HashSet<>(selected);
 
-        TreeItem<Task> parent = selected.getParent();
-        List<TreeItem<Task>> siblings = parent.getChildren();
-        List<Task> siblingTasks = parent.getValue().getChildren();
+        batch(() -> {
+            for (TreeItem<Task> item : selected) {
+                List<TreeItem<Task>> siblings = children(item.getParent());
+                int index = item.getValue().getIndex();
 
-        int index = siblings.indexOf(selected);
-        if (index <= 0) return; // Bereits ganz oben oder nicht gefunden
+                // Bereits ganz oben oder hinter einem ausgewählten Eintrag, der nicht weiter kann
+                if (index <= 0 || selectedSet.contains(siblings.get(index - 1))) continue;
 
-        // Swap in TreeView
-        siblings.remove(index);
-        siblings.add(index - 1, selected);
+                // Swap im Model
+                edit(Edit.moveUp(pathOf(item)));
 
-        // Swap im Model
-        Task task = selected.getValue();
-        siblingTasks.remove(index);
-        siblingTasks.add(index - 1, task);
+                // Swap in TreeView
+                siblings.remove(index);
+                siblings.add(index - 1, item);
+            }
+        });
 
-        view.taskTreeView.getSelectionModel().select(selected);
-        save();
+        select(selected);
     }
 
     public void onMoveDown(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected == null || selected.getParent() == null) return;
+        List<TreeItem<Task>> selected = selectedItems();
+        Set<TreeItem<Task>> selectedSet = new HashSet<>(selected);
 
-        TreeItem<Task> parent = selected.getParent();
-        List<TreeItem<Task>> siblings = parent.getChildren();
-        List<Task> siblingTasks = parent.getValue().getChildren();
+        batch(() -> {
+            // Von unten nach oben, damit ein Block zusammen bleibt
+            for (int i = selected.size() - 1; i >= 0; i--) {
+                TreeItem<Task> item = selected.get(i);
+                List<TreeItem<Task>> siblings = children(item.getParent());
+                int index = item.getValue().getIndex();
 
-        int index = siblings.indexOf(selected);
-        if (index < 0 || index >= siblings.size() - 1) return; // Bereits ganz unten oder nicht gefunden
+                // Bereits ganz unten oder vor einem ausgewählten Eintrag, der nicht weiter kann
+                if (index >= siblings.size() - 1 || selectedSet.contains(siblings.get(index + 1))) continue;
 
-        // Swap in TreeView
-        siblings.remove(index);
-        siblings.add(index + 1, selected);
+                // Swap im Model
+                edit(Edit.moveDown(pathOf(item)));
 
-        // Swap im Model
-        Task task = selected.getValue();
-        siblingTasks.remove(index);
-        siblingTasks.add(index + 1, task);
+                // Swap in TreeView
+                siblings.remove(index);
+                siblings.add(index + 1, item);
+            }
+        });
 
-        view.taskTreeView.getSelectionModel().select(selected);
-        save();
+        select(selected);
     }
 
     public void onToggleImportant(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            Task task = selected.getValue();
-            task.setImportant(!task.isImportant());
-            refreshTreeItem(selected);
-            save();
-        }
+        toggleFlag(Flag.IMPORTANT);
     }
 
     public void onToggleUrgent(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            Task task = selected.getValue();
-            task.setUrgent(!task.isUrgent());
-            refreshTreeItem(selected);
-            save();
-        }
+        toggleFlag(Flag.URGENT);
     }
 
     public void onToggleDone(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            Task task = selected.getValue();
-            task.setDone(!task.isDone());
-            refreshTreeItem(selected);
-            save();
-        }
+        toggleFlag(Flag.DONE);
     }
 
     public void onTaskRename(TreeView.EditEvent<Task> event) {
         TreeItem<Task> treeItem = event.getTreeItem();
         Task task = treeItem.getValue();
         if (task != null) {
-            refreshTreeItem(treeItem);
+            edit(Edit.rename(pathOf(treeItem), task.getText()));
             save();
         }
     }
 
     public void onToggleOptional(ActionEvent event) {
-        TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            Task task = selected.getValue();
-            task.setOptional(!task.isOptional());
-            refreshTreeItem(selected);
-            save();
-        }
+        toggleFlag(Flag.OPTIONAL);
     }
 
     public void onToggleObsolete(ActionEvent event) {
+        toggleFlag(Flag.OBSOLETE);
+    }
+
+    // Sind alle ausgewählten Einträge markiert, wird das Flag entfernt, sonst bei allen gesetzt
+    private void toggleFlag(Flag flag) {
+        List<TreeItem<Task>> selected = selectedItems();
+        if (selected.isEmpty()) return;
+
+        boolean value = !selected.stream().allMatch(item -> item.getValue().is(flag));
+
+        batch(() -> {
+            for (TreeItem<Task> item : selected) {
+                Task task = item.getValue();
+                int[] path = pathOf(item);
+                if (task.is(flag) != value) {
+                    edit(Edit.flag(path, flag, value));
+                }
+                if (flag == Flag.OBSOLETE && task.isDone()) {
+                    edit(Edit.flag(path, Flag.DONE, false)); // Wenn obsolet, nicht mehr als "done" markieren
+                }
+            }
+        });
+    }
+
+    // Ausgewählte Einträge in Dokumentreihenfolge, ohne Root
+    private List<TreeItem<Task>> selectedItems() {
+        List<TreeItem<Task>> items = new ArrayList<>();
+        for (TreeItem<Task> item : view.taskTreeView.getSelectionModel().getSelectedItems()) {
+            if (item != null && item.getParent() != null) {
+                items.add(item);
+            }
+        }
+        items.sort(Comparator.comparing((TreeItem<Task> item) -> item.getValue().getPath(), Arrays::compare));
+        return items;
+    }
+
+    private static boolean hasSelectedAncestor(TreeItem<Task> item, Set<TreeItem<Task>> selected) {
+        for (TreeItem<Task> current = item.getParent(); current != null; current = current.getParent()) {
+            if (selected.contains(current)) return true;
+        }
+        return false;
+    }
+
+    private void select(List<TreeItem<Task>> items) {
+        MultipleSelectionModel<TreeItem<Task>> selectionModel = view.taskTreeView.getSelectionModel();
+        selectionModel.clearSelection();
+        items.forEach(selectionModel::select);
+    }
+
+    // Klappt den ausgewählten Teilbaum oder den ganzen Baum auf bzw. zu
+    public void onExpandAll(boolean expanded) {
+        TreeItem<Task> start = selectedOrRoot();
+        if (start == null) return;
+
+        batch(() -> {
+            // Erst das Model, dann nur die bereits erzeugten TreeItems;
+            // alle anderen übernehmen den Zustand beim Erzeugen aus dem Model
+            forEachTask(start.getValue(), task -> {
+                if (!task.getChildren().isEmpty() && task.isOpen() != expanded) {
+                    edit(Edit.flag(task.getPath(), Flag.OPEN, expanded));
+                }
+            });
+            setExpandedLoaded(start, expanded);
+        });
+    }
+
+    private static void setExpandedLoaded(TreeItem<Task> item, boolean expanded) {
+        if (item.getParent() != null && !item.isLeaf()) {
+            item.setExpanded(expanded);
+        }
+        if (item instanceof TaskTreeItem taskItem && !taskItem.isChildrenLoaded()) return;
+
+        for (TreeItem<Task> child : children(item)) {
+            setExpandedLoaded(child, expanded);
+        }
+    }
+
+    // Markiert die ausgewählten Tasks mit allen Unteraufgaben als erledigt, obsolete bleiben unverändert
+    public void onMarkSubtreeDone(ActionEvent event) {
+        List<TreeItem<Task>> selected = selectedItems();
+
+        batch(() -> selected.forEach(item -> forEachTask(item.getValue(), task -> {
+            if (!task.isDone() && !task.isObsolete()) {
+                edit(Edit.flag(task.getPath(), Flag.DONE, true));
+            }
+        })));
+    }
+
+    // Löscht alle Unteraufgaben der ausgewählten Tasks
+    public void onDeleteChildren(ActionEvent event) {
+        List<TreeItem<Task>> selected = selectedItems();
+        Set<TreeItem<Task>> selectedSet = new HashSet<>(selected);
+        selected.removeIf(item -> hasSelectedAncestor(item, selectedSet));
+
+        batch(() -> {
+            for (TreeItem<Task> item : selected) {
+                List<Task> children = item.getValue().getChildren();
+                // Von hinten, damit die Pfade der übrigen gültig bleiben
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    edit(Edit.delete(children.get(i).getPath()));
+                }
+                children(item).clear();
+            }
+        });
+    }
+
+    private TreeItem<Task> selectedOrRoot() {
         TreeItem<Task> selected = view.taskTreeView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            Task task = selected.getValue();
-            task.setObsolete(!task.isObsolete());
-            task.setDone(false); // Wenn obsolet, nicht mehr als "done" markieren
-            refreshTreeItem(selected);
-            save();
+        return selected != null ? selected : view.taskTreeView.getRoot();
+    }
+
+    // Der Task selbst (außer dem Root) und alle darunter, in Dokumentreihenfolge
+    private static void forEachTask(Task task, Consumer<Task> action) {
+        if (task.getParent() != null) {
+            action.accept(task);
+        }
+        for (Task child : task.getChildren()) {
+            forEachTask(child, action);
         }
     }
 
     private TreeItem<Task> createTreeItem(Task task) {
-        TreeItem<Task> item = new TreeItem<>(task);
-
-        updateCheckbox(item);
+        TreeItem<Task> item = new TaskTreeItem(task, this::createTreeItem, filter);
 
         // Setze initial den Expand-Status entsprechend dem Model
         item.setExpanded(task.isOpen());
@@ -409,55 +731,180 @@ public class SprintPlanningController {
 
         // Wenn der Nutzer ein- oder ausklappt, übertrage das ins Model
         item.expandedProperty().addListener((obs, wasExpanded, isNowExpanded) -> {
-            task.setOpen(isNowExpanded);
-            save();
+            if (task.isOpen() != isNowExpanded) {
+                edit(Edit.flag(pathOf(item), Flag.OPEN, isNowExpanded));
+                save();
+            }
         });
 
-        // Rekursiv Kind-Knoten anlegen
-        for (Task child : task.getChildren()) {
-            item.getChildren().add(createTreeItem(child));
+        return item;
+    }
+
+    // Nur die Zelle des geänderten Tasks wird neu gezeichnet, nicht der ganze Baum
+    // Auch die Vorfahren eines geänderten Tasks melden sich, da sich ihr Fortschritt ändert
+    private void onTaskChanged(Task task) {
+        // Ändert sich die Sichtbarkeit, werden nur die Kinder der betroffenen Eltern neu gefiltert,
+        // nach der Änderung in refilter
+        Task changed = filter.update(task);
+        if (changed != null) {
+            for (Task current = task; current != changed.getParent(); current = current.getParent()) {
+                refilterParents.add(current.getParent());
+            }
         }
 
-        return item;
+        if (task == model.getRoot()) {
+            view.weekListView.refresh();
+            return;
+        }
+
+        TaskTreeCell cell = visibleCells.get(task);
+        if (cell != null && cell.getItem() == task) {
+            cell.update();
+        }
     }
 
-    private void refreshTreeItem(TreeItem<Task> item) {
-        // Workaround zum Aktualisieren der Darstellung (da TreeCell nicht automatisch reagiert)
-        Task task = item.getValue();
-//        System.out.println("refreshTreeItem(" + task.getText() + ") = " + System.identityHashCode(task));
+    // Blendet Tasks nach den Einstellungen der Filterleiste aus, die vorhandenen TreeItems bleiben erhalten
+    private void onFilterChanged() {
+        filter.setHidden(Flag.DONE, view.btnHideDone.isSelected());
+        filter.setHidden(Flag.OPTIONAL, view.btnHideOptional.isSelected());
+        filter.setHidden(Flag.OBSOLETE, view.btnHideObsolete.isSelected());
+        filter.setText(view.filterField.getText());
+
+        TreeItem<Task> root = view.taskTreeView.getRoot();
+        if (root == null) return; // Keine Woche geladen, showWeek wendet den Filter an
+
+        List<TreeItem<Task>> selected = selectedItems();
+        filter.apply(model.getRoot());
+        ((TaskTreeItem) root).refilter(true);
 
-        item.setValue(null);
-        item.setValue(task);
+        selected.removeIf(item -> view.taskTreeView.getRow(item) < 0);
+        select(selected);
+    }
 
-        updateCheckbox(item);
+    private void edit(Edit edit) {
+        try {
+            model.apply(edit);
+        } catch (IOException e) {
+            e.printStackTrace();
+            // Journal nicht beschreibbar: stattdessen komplett speichern
+            saveScheduler.requestSave();
+        }
+        refilter();
+    }
+
+    // Führt die Änderungen einer Nutzeraktion gemeinsam aus: ein Schreibzugriff auf das Journal,
+    // eine Aktualisierung je geänderter Zelle
+    private void batch(Runnable action) {
+        if (model.getRoot() == null) return; // Keine Woche geladen
+
+        try {
+            model.batch(action::run);
+        } catch (IOException e) {
+            e.printStackTrace();
+            // Journal nicht beschreibbar: stattdessen komplett speichern
+            saveScheduler.requestSave();
+        }
+        refilter();
+        save();
     }
 
-    private static void updateCheckbox(TreeItem<Task> item) {
-        Task task = item.getValue();
-        FontAwesomeIconView icon = new FontAwesomeIconView(task.isDone() ? FontAwesomeIcon.CHECK_SQUARE_ALT : FontAwesomeIcon.SQUARE_ALT);
-        item.setGraphic(icon);
+    // Filtert die Kinder der in onTaskChanged gesammelten Eltern neu, bei einer Massenänderung
+    // also jeden Parent einmal statt einmal je geändertem Kind
+    private void refilter() {
+        for (Task parent : refilterParents) {
+            TaskTreeItem parentItem = loadedItem(parent);
+            if (parentItem != null) {
+                parentItem.refilter(false);
+            }
+        }
+        refilterParents.clear();
     }
 
     private void save() {
+//        System.out.println("save()");
+        // Änderungen stehen bereits im Journal, das XML wird nur gelegentlich neu geschrieben
+        if (model.isCompactionDue()) {
+            saveScheduler.requestSave();
+        }
+    }
+
+    public void close() {
         try {
-//            System.out.println("save()");
-            model.saveWeekPlan();
-            view.taskTreeView.refresh();  // ensure UI sync
-        } catch (JAXBException e) {
+            catalog.close();
+        } catch (IOException e) {
             e.printStackTrace();
         }
+
+        if (selectedWeek != null && FOLDER.isDirectory()) {
+            try {
+                Files.writeString(LAST_WEEK.toPath(), selectedWeek.getName());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        saveScheduler.close();
+
+        try {
+            searchIndex.save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void copyAsMarkdown() {
+        if (model.getRoot() == null) return;
+
+        List<TreeItem<Task>> selected = selectedItems();
+        Set<TreeItem<Task>> selectedSet = new HashSet<>(selected);
+        selected.removeIf(item -> hasSelectedAncestor(item, selectedSet));
+
+        StringWriter markdown = new StringWriter();
+        MarkdownExporter exporter = new MarkdownExporter(markdown, MarkdownExporter.Format.MARKDOWN);
+        try {
+            if (selected.isEmpty()) {
+                for (Task task : model.getTasks()) {
+                    exporter.writeSubtree(task);
+                }
+            } else {
+                for (TreeItem<Task> item : selected) {
+                    exporter.writeSubtree(item.getValue());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace(); // StringWriter wirft nicht
+        }
+
+        ClipboardContent content = new ClipboardContent();
+        content.putString(markdown.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    // Alle Kind-Knoten, auch die vom Filter ausgeblendeten; die Indizes entsprechen denen der Tasks
+    private static ObservableList<TreeItem<Task>> children(TreeItem<Task> item) {
+        return ((TaskTreeItem) item).getAllChildren();
+    }
+
+    // Der bereits erzeugte TreeItem eines Tasks der angezeigten Woche, sonst null
+    private TaskTreeItem loadedItem(Task task) {
+        TreeItem<Task> item = view.taskTreeView.getRoot();
+        for (int index : task.getPath()) {
+            if (item == null || !((TaskTreeItem) item).isChildrenLoaded() || index >= children(item).size()) return null;
+            item = children(item).get(index);
+        }
+        return item != null && item.getValue() == task ? (TaskTreeItem) item : null;
+    }
+
+    // Die Tasks kennen ihre Position, die TreeItems müssen nicht durchsucht werden
+    private static int[] pathOf(TreeItem<Task> item) {
+        return item.getValue().getPath();
     }
 
     private String buildFullTaskText(TreeItem<Task> item) {
         List<String> parts = new ArrayList<>();
 
-        TreeItem<Task> current = item;
-        while (current != null && current.getParent() != null && current.getParent().getParent() != null) {
-            Task task = current.getValue();
-            if (task != null) {
-                parts.add(task.getText());
-            }
-            current = current.getParent();
+        // Ohne die oberste Ebene und den unsichtbaren Root-Task
+        for (Task current = item.getValue(); current.getParent() != null && current.getParent().getParent() != null; current = current.getParent()) {
+            parts.add(current.getText());
         }
 
         Collections.reverse(parts);
@@ -0,0 +1,130 @@
+package com.example.sprintplanning;
+
+import com.example.sprintplanning.model.*;
+
+import java.util.*;
+
+// Blendet Tasks mit bestimmten Flags oder ohne den Suchtext aus. Vorfahren eines angezeigten Tasks
+// bleiben sichtbar, damit er im Baum erreichbar ist. Das Model bleibt unverändert, die ausgeblendeten
+// Tasks stehen nur hier; neu angelegte Tasks sind zunächst sichtbar.
+class TaskFilter {
+
+    // Bits der ausgeblendeten Flags
+    private int hiddenFlags;
+
+    private String text = "";
+
+    private final Set<Task> hidden = new HashSet<>();
+
+    // Anzahl der angezeigten Kinder je Task, damit update nicht alle Geschwister durchsucht
+    private final Map<Task, Integer> shownChildren = new HashMap<>();
+
+    boolean isActive() {
+        return hiddenFlags != 0 || !text.isEmpty();
+    }
+
+    void setHidden(Flag flag, boolean hide) {
+        hiddenFlags = hide ? hiddenFlags | flag.mask() : hiddenFlags & ~flag.mask();
+    }
+
+    void setText(String text) {
+        this.text = text.strip();
+    }
+
+    boolean shows(Task task) {
+        return !hidden.contains(task);
+    }
+
+    // Ob der Task angezeigte Kinder hat, ohne sie zu durchsuchen
+    boolean showsChildren(Task task) {
+        return isActive() ? shownChildren.containsKey(task) : !task.getChildren().isEmpty();
+    }
+
+    // Bewertet alle Tasks unterhalb von root neu, z.B. nach einer Änderung der Einstellungen
+    void apply(Task root) {
+        hidden.clear();
+        shownChildren.clear();
+        if (isActive()) {
+            for (Task task : root.getChildren()) {
+                evaluate(task);
+            }
+        }
+    }
+
+    // Untergeordnete Tasks zuerst, sie bestimmen die Sichtbarkeit ihrer Vorfahren
+    private boolean evaluate(Task task) {
+        int count = 0;
+        for (Task child : task.getChildren()) {
+            if (evaluate(child)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            shownChildren.put(task, count);
+        }
+
+        boolean shown = count > 0 || matches(task);
+        if (!shown) {
+            hidden.add(task);
+        }
+        return shown;
+    }
+
+    // Bewertet einen geänderten Task und, solange sich die Sichtbarkeit ändert, seine Vorfahren neu.
+    // Liefert den obersten Task, dessen Sichtbarkeit sich geändert hat, sonst null.
+    // Nur die Kinder des geänderten Tasks werden gezählt: Wird ein Kind hinzugefügt oder entfernt,
+    // meldet sich auch sein Parent, die Vorfahren passen ihren Zähler nur um eins an.
+    Task update(Task task) {
+        if (!isActive()) return null;
+
+        int count = 0;
+        for (Task child : task.getChildren()) {
+            if (shows(child)) {
+                count++;
+            }
+        }
+        setShownChildren(task, count);
+
+        Task changed = null;
+        for (Task current = task; current.getParent() != null; current = current.getParent()) {
+            boolean shown = matches(current) || shownChildren.getOrDefault(current, 0) > 0;
+            if (shown == shows(current)) break;
+
+            if (shown) {
+                hidden.remove(current);
+            } else {
+                hidden.add(current);
+            }
+            Task parent = current.getParent();
+            setShownChildren(parent, shownChildren.getOrDefault(parent, 0) + (shown ? 1 : -1));
+            changed = current;
+        }
+        return changed;
+    }
+
+    private void setShownChildren(Task task, int count) {
+        if (count > 0) {
+            shownChildren.put(task, count);
+        } else {
+            shownChildren.remove(task);
+        }
+    }
+
+    private boolean matches(Task task) {
+        return (task.getFlags() & hiddenFlags) == 0 && containsText(task.getText());
+    }
+
+    // Groß- und Kleinschreibung wird ignoriert, ohne den Text zu kopieren
+    private boolean containsText(String value) {
+        if (text.isEmpty()) return true;
+        if (value == null) return false;
+
+        for (int i = 0; i <= value.length() - text.length(); i++) {
+            if (value.regionMatches(true, i, text, 0, text.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.sprintplanning;
+
+import com.example.sprintplanning.model.*;
+import de.jensd.fx.glyphs.fontawesome.*;
+import javafx.css.*;
+import javafx.scene.control.cell.*;
+
+// Zelle eines Tasks; die Flags werden als Pseudo-Klassen gesetzt und in styles.css gestaltet
+class TaskTreeCell extends TextFieldTreeCell<Task> {
+
+    // Nur Flags mit einer Regel in styles.css; "erledigt" zeigt das Icon, offen ist der Normalfall
+    private static final Flag[] FLAGS = { Flag.IMPORTANT, Flag.URGENT, Flag.OPTIONAL, Flag.OBSOLETE };
+
+    // :important, :urgent, :optional, :obsolete
+    private static final PseudoClass[] PSEUDO_CLASSES = new PseudoClass[Flag.values().length];
+
+    static {
+        for (Flag flag : FLAGS) {
+            PSEUDO_CLASSES[flag.ordinal()] = PseudoClass.getPseudoClass(flag.attribute());
+        }
+    }
+
+    // Jede Zelle behält ihr Icon und schaltet nur das Symbol um
+    private final FontAwesomeIconView checkbox = new FontAwesomeIconView(FontAwesomeIcon.SQUARE_ALT);
+
+    TaskTreeCell() {
+        super(new TaskStringConverter());
+        getStyleClass().add("task-cell");
+    }
+
+    @Override
+    public void commitEdit(Task newValue) {
+        Task oldValue = getItem();
+//        System.out.println("commitEdit(" + newValue.getText() + ") = " + System.identityHashCode(oldValue) + " -> " + System.identityHashCode(newValue));
+        oldValue.setText(newValue.getText());
+        super.commitEdit(oldValue);
+    }
+
+    @Override
+    public void cancelEdit() {
+        super.cancelEdit();
+        update();
+    }
+
+    @Override
+    public void updateItem(Task task, boolean empty) {
+        super.updateItem(task, empty);
+        update();
+    }
+
+    // Übernimmt Text und Flags des angezeigten Tasks, z.B. nach einer Änderung im Model
+    void update() {
+        Task task = getItem();
+        boolean filled = task != null && !isEmpty();
+
+        for (Flag flag : FLAGS) {
+            pseudoClassStateChanged(PSEUDO_CLASSES[flag.ordinal()], filled && task.is(flag));
+        }
+
+        if (filled && !isEditing()) {
+            checkbox.setIcon(task.isDone() ? FontAwesomeIcon.CHECK_SQUARE_ALT : FontAwesomeIcon.SQUARE_ALT);
+            setText(task.getChildren().isEmpty() ? task.getText() : task.getText() + "  (" + describe(task.getProgress()) + ")");
+            setGraphic(checkbox);
+        }
+    }
+
+    // z.B. "7/12 erledigt, 2 dringend offen"
+    static String describe(Progress progress) {
+        StringBuilder text = new StringBuilder();
+        text.append(progress.done()).append('/').append(progress.tasks()).append(" erledigt");
+        if (progress.urgent() > 0) {
+            text.append(", ").append(progress.urgent()).append(" dringend offen");
+        }
+        if (progress.important() > 0) {
+            text.append(", ").append(progress.important()).append(" wichtig offen");
+        }
+        return text.toString();
+    }
+
+}
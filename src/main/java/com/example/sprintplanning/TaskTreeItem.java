@@ -0,0 +1,152 @@
+package com.example.sprintplanning;
+
+import com.example.sprintplanning.model.*;
+import javafx.collections.*;
+import javafx.scene.control.*;
+
+import java.util.*;
+import java.util.function.*;
+
+// TreeItem, der seine Kind-Knoten erst beim ersten Zugriff (z.B. beim Aufklappen) erzeugt.
+// getAllChildren() enthält alle Kind-Knoten in der Reihenfolge der Tasks, getChildren() nur die vom Filter
+// angezeigten; Änderungen erfolgen an getAllChildren(), die angezeigten folgen automatisch.
+class TaskTreeItem extends TreeItem<Task> {
+
+    private final Function<Task, TreeItem<Task>> factory;
+
+    private final TaskFilter filter;
+
+    private ObservableList<TreeItem<Task>> allChildren;
+
+    TaskTreeItem(Task task, Function<Task, TreeItem<Task>> factory, TaskFilter filter) {
+        super(task);
+        this.factory = factory;
+        this.filter = filter;
+    }
+
+    boolean isChildrenLoaded() {
+        return allChildren != null;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        if (allChildren != null) {
+            return super.getChildren().isEmpty();
+        }
+        // Der Filter zählt die angezeigten Kinder, sie müssen dafür nicht durchsucht werden
+        Task task = getValue();
+        return task == null || !filter.showsChildren(task);
+    }
+
+    @Override
+    public ObservableList<TreeItem<Task>> getChildren() {
+        getAllChildren();
+        return super.getChildren();
+    }
+
+    ObservableList<TreeItem<Task>> getAllChildren() {
+        if (allChildren == null && getValue() != null) {
+            List<Task> tasks = getValue().getChildren();
+            List<TreeItem<Task>> items = new ArrayList<>(tasks.size());
+            for (Task child : tasks) {
+                items.add(factory.apply(child));
+            }
+            allChildren = FXCollections.observableList(items);
+            allChildren.addListener((ListChangeListener<TreeItem<Task>>) change -> showChildren());
+            showChildren();
+        }
+        return allChildren;
+    }
+
+    // Wendet den Filter erneut auf die bereits erzeugten Knoten an, bei deep auch auf alle darunter
+    void refilter(boolean deep) {
+        if (allChildren == null) return;
+
+        refilterChildren();
+        if (deep) {
+            for (TreeItem<Task> child : allChildren) {
+                ((TaskTreeItem) child).refilter(true);
+            }
+        }
+    }
+
+    // Nur die Sichtbarkeit hat sich geändert, die angezeigten Knoten sind also eine Teilfolge aller.
+    // Ein- und ausgeblendete werden je zusammenhängendem Abschnitt in einem Schritt eingefügt bzw. entfernt.
+    private void refilterChildren() {
+        ObservableList<TreeItem<Task>> shown = super.getChildren();
+        List<TreeItem<Task>> adding = new ArrayList<>();
+        int index = 0;
+        int removing = 0;
+
+        for (TreeItem<Task> child : allChildren) {
+            boolean wasShown = index + removing < shown.size() && shown.get(index + removing) == child;
+            boolean show = filter.shows(child.getValue());
+            if (wasShown == show) {
+                if (show) {
+                    if (removing > 0) {
+                        shown.remove(index, index + removing);
+                        removing = 0;
+                    }
+                    if (!adding.isEmpty()) {
+                        shown.addAll(index, adding);
+                        index += adding.size();
+                        adding.clear();
+                    }
+                    index++;
+                }
+            } else if (show) {
+                if (removing > 0) {
+                    shown.remove(index, index + removing);
+                    removing = 0;
+                }
+                adding.add(child);
+            } else {
+                if (!adding.isEmpty()) {
+                    shown.addAll(index, adding);
+                    index += adding.size();
+                    adding.clear();
+                }
+                removing++;
+            }
+        }
+
+        if (removing > 0) {
+            shown.remove(index, index + removing);
+        }
+        if (!adding.isEmpty()) {
+            shown.addAll(index, adding);
+        }
+    }
+
+    // Gleicht die angezeigten Kind-Knoten nach einer Änderung aller ab; nur der geänderte Bereich wird ersetzt,
+    // damit der TreeView Auswahl und Position der übrigen behält
+    private void showChildren() {
+        List<TreeItem<Task>> target = new ArrayList<>(allChildren.size());
+        for (TreeItem<Task> child : allChildren) {
+            if (filter.shows(child.getValue())) {
+                target.add(child);
+            }
+        }
+
+        ObservableList<TreeItem<Task>> shown = super.getChildren();
+        int start = 0;
+        int end = Math.min(shown.size(), target.size());
+        while (start < end && shown.get(start) == target.get(start)) {
+            start++;
+        }
+        int shownEnd = shown.size();
+        int targetEnd = target.size();
+        while (shownEnd > start && targetEnd > start && shown.get(shownEnd - 1) == target.get(targetEnd - 1)) {
+            shownEnd--;
+            targetEnd--;
+        }
+
+        if (shownEnd > start) {
+            shown.remove(start, shownEnd);
+        }
+        if (targetEnd > start) {
+            shown.addAll(start, target.subList(start, targetEnd));
+        }
+    }
+
+}
@@ -0,0 +1,351 @@
+package com.example.sprintplanning.cli;
+
+import com.example.sprintplanning.model.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+// Headless access to the week plans for scripts and cron jobs; uses only the model, never JavaFX.
+// Paths are 0-based and dotted like the search hits, e.g. 0.2.1 is the second child of the third
+// child of the first top-level task. Weeks are given as 2025-07-21 or as a path to the XML file.
+public class SprintPlanningCli {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: SprintPlanningCli [-folder <dir>] <command>",
+            "  weeks                                 lists the weeks of the folder",
+            "  show <week> [path]                    prints the tasks of a week with their paths",
+            "  set <week> <path> <flag>              sets a flag, e.g. done or urgent",
+            "  clear <week> <path> <flag>            clears a flag",
+            "  rename <week> <path> <text>           changes the text of a task",
+            "  add <week> <parent path|-> <text>     appends a task, - for the top level",
+            "  find [-from <week>] [-to <week>] [-is <flag>]... [-not <flag>]... [term]...",
+            "                                        tasks of all weeks that match, terms are prefixes",
+            "  pack <week>                           moves the weeks up to the given one into yearly archives",
+            "Flags: " + Arrays.stream(Flag.values()).map(Flag::attribute).collect(Collectors.joining(", ")),
+            "Exit status: 0 success, 1 nothing found or failed, 2 wrong arguments, 3 week open in another program");
+
+    private final Path folder;
+    private final SprintPlanningModel model = new SprintPlanningModel();
+    private final PrintWriter out;
+
+    public SprintPlanningCli(Path folder, PrintWriter out) {
+        this.folder = folder;
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        Path folder = Path.of("planning");
+        if (arguments.size() >= 2 && arguments.get(0).equals("-folder")) {
+            folder = Path.of(arguments.get(1));
+            arguments.subList(0, 2).clear();
+        }
+        if (arguments.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024));
+        int status;
+        try {
+            status = new SprintPlanningCli(folder, out).run(arguments.get(0), arguments.subList(1, arguments.size()));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            status = 2;
+        } catch (Journal.LockedException e) {
+            // Die Anwendung schriebe ihr Journal sonst über die Änderung hinweg
+            System.err.println(e.getMessage());
+            status = 3;
+        } catch (IOException e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            out.flush();
+        }
+        System.exit(status);
+    }
+
+    // Returns the exit status: 0 on success, 1 if nothing was found, 2 for wrong arguments.
+    // Edits throw Journal.LockedException while the week is open in another program, e.g. the application.
+    public int run(String command, List<String> args) throws IOException {
+        switch (command) {
+            case "weeks" -> {
+                expect(args, 0, 0);
+                for (Path week : WeekCatalog.weeks(folder, "", "\uffff")) {
+                    out.println(weekName(week.toFile()));
+                }
+                return 0;
+            }
+            case "show" -> {
+                expect(args, 1, 2);
+                File file = weekFile(args.get(0));
+                if (args.size() == 2) {
+                    int[] path = parsePath(args.get(1));
+                    print(readTask(file, path), path, 0);
+                } else {
+                    for (Task task : model.readWeek(file).getTasks()) {
+                        print(task, task.getPath(), 0);
+                    }
+                }
+                return 0;
+            }
+            case "set", "clear" -> {
+                expect(args, 3, 3);
+                int[] path = parseTaskPath(args.get(1));
+                Flag flag = parseFlag(args.get(2));
+                return edit(args.get(0), path, Edit.flag(path, flag, command.equals("set")));
+            }
+            case "rename" -> {
+                expect(args, 3, 3);
+                int[] path = parseTaskPath(args.get(1));
+                return edit(args.get(0), path, Edit.rename(path, args.get(2)));
+            }
+            case "add" -> {
+                expect(args, 3, 3);
+                int[] path = parsePath(args.get(1));
+                return edit(args.get(0), path, Edit.newTask(path, args.get(2)));
+            }
+            case "find" -> {
+                return find(args);
+            }
+            case "pack" -> {
+                expect(args, 1, 1);
+                return pack(weekName(new File(args.get(0))));
+            }
+            default -> throw new IllegalArgumentException("Unknown command " + command + "\n" + USAGE);
+        }
+    }
+
+    // The path is the one the edit addresses, it is checked against the loaded week
+    private int edit(String week, int[] path, Edit edit) throws IOException {
+        File file = weekFile(week);
+        model.loadWeekPlan(file.getPath());
+        for (Edit conflict : model.getConflicts()) {
+            System.err.println("Dropped journal entry, " + weekName(file) + " was changed by another program: " + conflict.encode());
+        }
+
+        resolve(model.getRoot(), path);
+        model.apply(edit);
+
+        // Wie in der Anwendung wird das XML nur neu geschrieben, wenn das Journal zu groß wird
+        if (model.isCompactionDue()) {
+            model.saveWeekPlan();
+        }
+        return 0;
+    }
+
+    // Weeks with unsaved edits in their journal or files that cannot be deleted are left out
+    private int pack(String to) throws IOException {
+        List<File> weekFiles = new ArrayList<>();
+        for (Path week : WeekCatalog.weeks(folder, "", to)) {
+            if (Files.isRegularFile(week)) {
+                weekFiles.add(week.toFile());
+            }
+        }
+
+        Map<File, Long> sizes = new HashMap<>();
+        for (File weekFile : weekFiles) {
+            sizes.put(weekFile, weekFile.length() + BinaryTaskFile.fileFor(weekFile).toFile().length());
+        }
+        List<File> packed = WeekArchive.pack(weekFiles);
+        long removed = 0;
+        for (File weekFile : weekFiles) {
+            if (packed.contains(weekFile)) {
+                removed += sizes.get(weekFile);
+            } else {
+                out.println("Skipped " + weekName(weekFile) + ", it has unsaved edits or is in use");
+            }
+        }
+
+        SortedSet<Path> archives = new TreeSet<>();
+        packed.forEach(weekFile -> archives.add(WeekArchive.fileFor(weekFile)));
+        for (Path archive : archives) {
+            out.println(archive.getFileName() + "\t" + WeekArchive.open(archive).getWeeks().size() + " weeks, " + Files.size(archive) / 1024 + " KB");
+        }
+        out.println("Packed " + packed.size() + " weeks, " + removed / 1024 + " KB of files removed");
+        return packed.isEmpty() ? 1 : 0;
+    }
+
+    private int find(List<String> args) throws IOException {
+        String from = "";
+        String to = "\uffff";
+        int required = 0;
+        int excluded = 0;
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            switch (arg) {
+                case "-from" -> from = weekName(new File(value(args, ++i, arg)));
+                case "-to" -> to = weekName(new File(value(args, ++i, arg)));
+                case "-is" -> required |= parseFlag(value(args, ++i, arg)).mask();
+                case "-not" -> excluded |= parseFlag(value(args, ++i, arg)).mask();
+                default -> terms.addAll(SearchIndex.tokenize(arg));
+            }
+        }
+
+        List<Path> weeks = WeekCatalog.weeks(folder, from, to);
+        Map<String, Set<String>> candidates = terms.isEmpty() ? null : search(weeks, terms);
+
+        int flagsRequired = required;
+        int flagsExcluded = excluded;
+        List<String> lines = weeks.parallelStream()
+                .filter(week -> candidates == null || candidates.containsKey(week.getFileName().toString()))
+                .flatMap(week -> {
+                    Set<String> paths = candidates != null ? candidates.get(week.getFileName().toString()) : null;
+                    List<String> matches = new ArrayList<>();
+                    try {
+                        collect(model.readWeek(week.toFile()).getTasks(), weekName(week.toFile()), paths, flagsRequired, flagsExcluded, matches);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return matches.stream();
+                })
+                .collect(Collectors.toList());
+
+        lines.forEach(out::println);
+        return lines.isEmpty() ? 1 : 0;
+    }
+
+    // Paths per week that contain every term, from the search index; only changed weeks are read
+    private Map<String, Set<String>> search(List<Path> weeks, List<String> terms) throws IOException {
+        SearchIndex index = new SearchIndex(folder.resolve(".search-index"));
+        index.build(weeks.stream().map(Path::toFile).collect(Collectors.toList()), model::readWeek);
+        index.save();
+
+        Map<String, Set<String>> candidates = null;
+        for (String term : terms) {
+            Map<String, Set<String>> hits = new HashMap<>();
+            for (SearchIndex.Hit hit : index.findPrefix(term)) {
+                hits.computeIfAbsent(hit.week(), w -> new HashSet<>()).add(formatPath(hit.path()));
+            }
+            if (candidates == null) {
+                candidates = hits;
+            } else {
+                candidates.keySet().retainAll(hits.keySet());
+                candidates.forEach((week, paths) -> paths.retainAll(hits.get(week)));
+                candidates.values().removeIf(Set::isEmpty);
+            }
+        }
+        return candidates;
+    }
+
+    private static void collect(List<Task> tasks, String week, Set<String> paths, int required, int excluded, List<String> matches) {
+        for (Task task : tasks) {
+            int flags = task.getFlags();
+            if ((flags & required) == required && (flags & excluded) == 0) {
+                String path = formatPath(task.getPath());
+                if (paths == null || paths.contains(path)) {
+                    matches.add(week + '\t' + path + '\t' + describe(task));
+                }
+            }
+            collect(task.getChildren(), week, paths, required, excluded, matches);
+        }
+    }
+
+    private void print(Task task, int[] path, int depth) {
+        out.println(formatPath(path) + '\t' + "  ".repeat(depth) + describe(task));
+        int[] childPath = Arrays.copyOf(path, path.length + 1);
+        List<Task> children = task.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            childPath[path.length] = i;
+            print(children.get(i), childPath, depth + 1);
+        }
+    }
+
+    // [x] Text {important, urgent}
+    private static String describe(Task task) {
+        StringJoiner flags = new StringJoiner(", ", " {", "}").setEmptyValue("");
+        for (Flag flag : Flag.values()) {
+            if (flag != Flag.DONE && flag != Flag.OPEN && task.is(flag)) {
+                flags.add(flag.attribute());
+            }
+        }
+        return (task.isDone() ? "[x] " : "[ ] ") + task.getText() + flags;
+    }
+
+    private File weekFile(String week) {
+        Path path = Path.of(week);
+        if (Files.isRegularFile(path)) {
+            return path.toFile();
+        }
+        File file = folder.resolve(week.endsWith(".xml") ? week : week + ".xml").toFile();
+        if (!WeekArchive.exists(file)) {
+            throw new IllegalArgumentException("No week " + week + " in " + folder);
+        }
+        return file;
+    }
+
+    private static String weekName(File file) {
+        String name = file.getName();
+        return name.endsWith(".xml") ? name.substring(0, name.length() - ".xml".length()) : name;
+    }
+
+    private static Task resolve(Task root, int[] path) {
+        try {
+            return Edit.resolve(root, path);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("No task at " + formatPath(path));
+        }
+    }
+
+    private Task readTask(File file, int[] path) throws IOException {
+        try {
+            return model.readTask(file, path);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("No task at " + formatPath(path));
+        }
+    }
+
+    // "-" is the top level
+    private static int[] parsePath(String path) {
+        if (path.equals("-")) {
+            return new int[0];
+        }
+        try {
+            return Arrays.stream(path.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid path " + path + ", expected e.g. 0.2.1");
+        }
+    }
+
+    // Like parsePath, for commands that change an existing task
+    private static int[] parseTaskPath(String path) {
+        if (path.equals("-")) {
+            throw new IllegalArgumentException("Expected the path of a task, e.g. 0.2.1; - is only valid for add\n" + USAGE);
+        }
+        return parsePath(path);
+    }
+
+    private static String formatPath(int[] path) {
+        StringJoiner joiner = new StringJoiner(".");
+        for (int index : path) {
+            joiner.add(String.valueOf(index));
+        }
+        return joiner.toString();
+    }
+
+    private static Flag parseFlag(String name) {
+        Flag flag = Flag.forAttribute(name.toLowerCase(Locale.ROOT));
+        if (flag == null) {
+            throw new IllegalArgumentException("Unknown flag " + name);
+        }
+        return flag;
+    }
+
+    private static String value(List<String> args, int index, String option) {
+        if (index >= args.size()) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args.get(index);
+    }
+
+    private static void expect(List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            throw new IllegalArgumentException("Wrong number of arguments\n" + USAGE);
+        }
+    }
+
+}
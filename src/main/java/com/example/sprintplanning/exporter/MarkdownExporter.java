@@ -0,0 +1,142 @@
+package com.example.sprintplanning.exporter;
+
+import com.example.sprintplanning.model.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Writes tasks as Markdown that MarkdownImporter reads back, or as indented plain text.
+// Nothing is buffered besides the Writer, weeks of a range are read one at a time.
+// The Markdown keeps the structure, the text and the done and important flags. Line breaks in a text
+// become spaces, the importer strips Markdown and HTML from a text, a missing text comes back empty
+// and the other flags are not written.
+public class MarkdownExporter {
+
+    public enum Format { MARKDOWN, TEXT }
+
+    private static final String INDENT = "    ";
+
+    private final Writer out;
+    private final Format format;
+
+    public MarkdownExporter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        Format format = arguments.remove("-text") ? Format.TEXT : Format.MARKDOWN;
+
+        if (arguments.isEmpty()) {
+            System.err.println("Usage: MarkdownExporter [-text] <week.xml> [output]");
+            System.err.println("       MarkdownExporter [-text] <folder> <from> <to> [output]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(arguments.get(0));
+        boolean range = Files.isDirectory(input);
+        if (range && arguments.size() < 3) {
+            System.err.println("A folder needs the first and the last week, e.g. 2025-01-06 2025-03-31");
+            System.exit(1);
+        }
+
+        int outputIndex = range ? 3 : 1;
+        OutputStream stream = arguments.size() > outputIndex ? Files.newOutputStream(Path.of(arguments.get(outputIndex))) : System.out;
+
+        SprintPlanningModel model = new SprintPlanningModel();
+        long start = System.nanoTime();
+        int exported = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024)) {
+            MarkdownExporter exporter = new MarkdownExporter(writer, format);
+            if (range) {
+                for (Path week : WeekCatalog.weeks(input, arguments.get(1), arguments.get(2))) {
+                    exporter.writeWeekHeading(week.getFileName().toString().replace(".xml", ""));
+                    exporter.writeWeek(model.readWeek(week.toFile()));
+                    exported++;
+                }
+            } else {
+                exporter.writeWeek(model.readWeek(input.toFile()));
+                exported++;
+            }
+        }
+
+        System.err.printf("Exported %d weeks in %.1f ms%n", exported, (System.nanoTime() - start) / 1e6);
+    }
+
+    public void writeWeekHeading(String week) throws IOException {
+        // Einfache Überschriften ignoriert der Importer
+        if (format == Format.MARKDOWN) {
+            out.write("# ");
+        }
+        out.write(week);
+        out.write("\n\n");
+    }
+
+    public void writeWeek(Tasks tasks) throws IOException {
+        for (Task task : tasks.getTasks()) {
+            writeSubtree(task);
+        }
+        out.write('\n');
+    }
+
+    // Writes the task and everything below it; the task itself becomes a top-level entry
+    public void writeSubtree(ReadOnlyTask task) throws IOException {
+        write(task, 0);
+    }
+
+    private void write(ReadOnlyTask task, int depth) throws IOException {
+        if (format == Format.MARKDOWN) {
+            if (depth == 0) {
+                // "##" ist beim Import die oberste Ebene; das Kästchen hält "erledigt" und auch einen leeren Text
+                out.write(task.is(Flag.DONE) ? "## [x] " : "## [ ] ");
+            } else {
+                for (int i = 1; i < depth; i++) {
+                    out.write(INDENT);
+                }
+                out.write(task.is(Flag.DONE) ? "- [x] " : "- [ ] ");
+            }
+            if (task.is(Flag.IMPORTANT)) {
+                out.write("**");
+                writeText(task.getText());
+                out.write("**");
+            } else {
+                writeText(task.getText());
+            }
+        } else {
+            for (int i = 0; i < depth; i++) {
+                out.write(INDENT);
+            }
+            out.write(task.is(Flag.DONE) ? "[x] " : "[ ] ");
+            writeText(task.getText());
+            if (task.is(Flag.IMPORTANT)) {
+                out.write(" !");
+            }
+        }
+        out.write('\n');
+
+        for (ReadOnlyTask child : task.getChildren()) {
+            write(child, depth + 1);
+        }
+    }
+
+    // Zeilenumbrüche im Text würden die Struktur zerstören
+    private void writeText(String text) throws IOException {
+        if (text == null) return;
+
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                out.write(text, start, i - start);
+                out.write(' ');
+                start = i + 1;
+            }
+        }
+        out.write(text, start, text.length() - start);
+    }
+
+}
@@ -1,71 +1,242 @@
 package com.example.sprintplanning.importer;
 
 import com.example.sprintplanning.model.*;
-import jakarta.xml.bind.*;
 
+import java.io.*;
+import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
+import java.util.stream.*;
 
 public class MarkdownImporter {
 
+    private static final Pattern HEADING = Pattern.compile("^(#{2,})\\s*(.+)$");
+    private static final Pattern CHECKBOX = Pattern.compile("^(\\s*)- \\[([ xX])\\]\\s*(.*)$");
+    // "## [x] Text" vom MarkdownExporter; der Text darf leer sein
+    private static final Pattern HEADING_CHECKBOX = Pattern.compile("^\\[([ xX])\\](?:\\s+(.*))?$");
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+
+    private final TaskCodec codec;
+
+    public MarkdownImporter(TaskCodec codec) {
+        this.codec = codec;
+    }
+
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
             System.err.println("Usage: MarkdownImporter <input.md> <output.xml>");
+            System.err.println("       MarkdownImporter <input.md|directory|glob>... <output directory>");
+            System.exit(1);
+        }
+        Path output = Path.of(args[args.length - 1]);
+        MarkdownImporter importer = new MarkdownImporter(TaskCodec.getDefault());
+
+        long start = System.nanoTime();
+
+        if (args.length == 2 && Files.isRegularFile(Path.of(args[0])) && !Files.isDirectory(output)) {
+            Result result = importer.importFile(Path.of(args[0]), output);
+            System.out.println("Imported " + result.topLevelTasks() + " top-level tasks into " + output);
+            report(1, 0, result.lines(), System.nanoTime() - start);
+            return;
+        }
+
+        List<Source> sources = new ArrayList<>();
+        for (String input : Arrays.asList(args).subList(0, args.length - 1)) {
+            sources.addAll(resolve(input));
+        }
+        if (sources.isEmpty()) {
+            System.err.println("No Markdown files found");
             System.exit(1);
         }
-        Path mdFile  = Path.of(args[0]);
-        Path xmlFile = Path.of(args[1]);
 
-        List<String> lines = Files.readAllLines(mdFile);
-        List<Task> rootTasks = parseMarkdown(lines);
+        // Gleiche Dateinamen aus verschiedenen Ordnern würden dasselbe XML gleichzeitig schreiben
+        Map<Path, Source> targets = new LinkedHashMap<>();
+        for (Source source : sources) {
+            Path xmlFile = output.resolve(xmlName(source.relative()));
+            Source previous = targets.putIfAbsent(xmlFile, source);
+            if (previous != null && !Files.isSameFile(previous.file(), source.file())) {
+                System.err.println("Both " + previous.file() + " and " + source.file() + " would be imported into " + xmlFile);
+                System.exit(1);
+            }
+        }
+        sources = new ArrayList<>(targets.values());
+
+        int threads = Math.min(sources.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> results = new ArrayList<>(sources.size());
+            for (Map.Entry<Path, Source> target : targets.entrySet()) {
+                Path xmlFile = target.getKey();
+                Source source = target.getValue();
+                results.add(pool.submit(() -> importer.importFile(source.file(), xmlFile)));
+            }
+
+            int files = 0;
+            int failed = 0;
+            long lines = 0;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    Result result = results.get(i).get();
+                    files++;
+                    lines += result.lines();
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println("Failed to import " + sources.get(i).file());
+                    e.getCause().printStackTrace();
+                }
+            }
+
+            System.out.println("Imported " + files + " files into " + output + " using " + threads + " threads");
+            report(files, failed, lines, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void report(int files, int failed, long lines, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%d files (%d failed), %d lines in %.3f s: %.1f files/s, %.0f lines/s%n",
+                files, failed, lines, seconds, files / seconds, lines / seconds);
+    }
+
+    // Reads one Markdown file line by line and writes its tasks to the XML file
+    public Result importFile(Path mdFile, Path xmlFile) throws IOException {
+        Parser parser;
+        try (BufferedReader reader = Files.newBufferedReader(mdFile, StandardCharsets.UTF_8)) {
+            parser = parse(reader);
+        }
+
+        if (xmlFile.getParent() != null) {
+            Files.createDirectories(xmlFile.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(xmlFile), 64 * 1024)) {
+            codec.write(parser.tasks, out);
+        }
+        return new Result(parser.lines, parser.tasks.getTasks().size());
+    }
+
+    // Parses the Markdown without writing anything, e.g. for benchmarks
+    public static Tasks parseMarkdown(BufferedReader reader) throws IOException {
+        return parse(reader).tasks;
+    }
+
+    private static Parser parse(BufferedReader reader) throws IOException {
+        Parser parser = new Parser();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parser.accept(line);
+        }
+        return parser;
+    }
+
+    // A Markdown file, a directory (all *.md below it) or a glob such as notes/2024-*.md or notes/**/*.md
+    private static List<Source> resolve(String input) throws IOException {
+        Path path = Path.of(input);
+        if (Files.isRegularFile(path)) {
+            return List.of(new Source(path, path.getFileName()));
+        }
+
+        Path base;
+        PathMatcher matcher;
+        if (Files.isDirectory(path)) {
+            base = path;
+            matcher = file -> file.getFileName().toString().endsWith(".md");
+        } else {
+            // Basis ist das längste Verzeichnis ohne Platzhalter
+            int wildcard = indexOfWildcard(input);
+            if (wildcard < 0) {
+                throw new FileNotFoundException(input);
+            }
+            int slash = input.lastIndexOf('/', wildcard);
+            base = slash < 0 ? Path.of("") : Path.of(input.substring(0, slash + 1));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + input.substring(slash + 1));
+        }
+
+        Path walkBase = base.toString().isEmpty() ? Path.of(".") : base;
+        try (Stream<Path> files = Files.walk(walkBase)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> walkBase.relativize(file))
+                    .filter(matcher::matches)
+                    .sorted()
+                    .map(relative -> new Source(walkBase.resolve(relative), relative))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfWildcard(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        // JAXB marshalling
-        Tasks tasks = new Tasks();
-        tasks.setTasks(rootTasks);
-        JAXBContext ctx = JAXBContext.newInstance(Tasks.class);
-        Marshaller m = ctx.createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(tasks, xmlFile.toFile());
+    private static Path xmlName(Path relative) {
+        String name = relative.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return relative.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".xml");
+    }
 
-        System.out.println("Imported " + rootTasks.size() + " top-level tasks into " + xmlFile);
+    private static String stripMarkdown(String s) {
+        // Entfernt einfache HTML-Tags und Markdown-Links, …
+        // hier nur rudimentär: <ins>…</ins> raus und fett-Markup
+        if (s.indexOf('<') >= 0) {
+            s = HTML_TAG.matcher(s).replaceAll("");
+        }
+        return s.replace("**", "").trim();
     }
 
-    private static List<Task> parseMarkdown(List<String> lines) {
-        List<Task> roots = new ArrayList<>();
-        Deque<Frame> stack = new ArrayDeque<>();
-        // Frame holds (task, level)
-        stack.push(new Frame(null, -1)); // sentinel
+    // Builds the tasks of one file line by line; not thread-safe
+    private static class Parser {
+
+        private final Tasks tasks = new Tasks();
+        private final Deque<Frame> stack = new ArrayDeque<>();
+
+        private final Matcher heading = HEADING.matcher("");
+        private final Matcher checkbox = CHECKBOX.matcher("");
+        private final Matcher headingCheckbox = HEADING_CHECKBOX.matcher("");
 
-        Pattern heading = Pattern.compile("^(#{2,})\\s*(.+)$");
-        Pattern checkbox = Pattern.compile("^(\\s*)- \\[([ xX])\\]\\s*(.+)$");
-        int lastHeadlineLevel = 0;
-        for (String raw : lines) {
+        private int lastHeadlineLevel = 0;
+        private int lines;
+
+        Parser() {
+            // Frame holds (task, level); the root of the week is the sentinel
+            stack.push(new Frame(tasks.getRoot(), -1));
+        }
+
+        void accept(String raw) {
+            lines++;
             String line = raw.strip();
-            if (line.isEmpty()) continue;
-            Matcher mH = heading.matcher(raw);
-            Matcher mC = checkbox.matcher(raw);
+            if (line.isEmpty()) return;
 
             int level;
             String text;
             boolean done = false;
             boolean important = false;
 
-            if (mH.matches()) {
-                int hashes = mH.group(1).length();
+            // Die Regex nur anwenden, wenn der Zeilenanfang passen kann
+            if (raw.startsWith("##") && heading.reset(raw).matches()) {
+                int hashes = heading.group(1).length();
                 level = hashes - 2;  // "##" → 0, "###" → 1, …
                 lastHeadlineLevel = level;
-                text = mH.group(2).trim();
-                if (text.isBlank()) { continue; }
+                text = heading.group(2).trim();
+                if (text.isBlank()) { return; }
+                if (text.startsWith("[") && headingCheckbox.reset(text).matches()) {
+                    done = headingCheckbox.group(1).equalsIgnoreCase("x");
+                    text = headingCheckbox.group(2) != null ? headingCheckbox.group(2).trim() : "";
+                }
             }
-            else if (mC.matches()) {
-                int spaces = mC.group(1).length();
+            else if (line.startsWith("- [") && checkbox.reset(raw).matches()) {
+                int spaces = checkbox.group(1).length();
                 level = lastHeadlineLevel + 1 + spaces / 4;  // 4 spaces = one deeper level
-                done = mC.group(2).equalsIgnoreCase("x");
-                text = mC.group(3).trim();
+                done = checkbox.group(2).equalsIgnoreCase("x");
+                text = checkbox.group(3).trim();
             } else {
                 // sonst überspringen
-                continue;
+                return;
             }
 
             // fett (**text**) → wichtig
@@ -84,25 +255,16 @@ public class MarkdownImporter {
             while (stack.peek().level >= level) {
                 stack.pop();
             }
-            Frame parentFrame = stack.peek();
-            if (parentFrame.task == null) {
-                roots.add(task);
-            } else {
-                parentFrame.task.getChildren().add(task);
-            }
+            stack.peek().task.addChild(task);
             stack.push(new Frame(task, level));
         }
-        return roots;
-    }
 
-    private static String stripMarkdown(String s) {
-        // Entfernt einfache HTML-Tags und Markdown-Links, …
-        // hier nur rudimentär: <ins>…</ins> raus und fett-Markup
-        return s
-            .replaceAll("<[^>]+>", "")
-            .replaceAll("\\*\\*", "")
-            .trim();
     }
 
     private record Frame(Task task, int level) {}
-}
\ No newline at end of file
+
+    private record Source(Path file, Path relative) {}
+
+    public record Result(int lines, int topLevelTasks) {}
+
+}
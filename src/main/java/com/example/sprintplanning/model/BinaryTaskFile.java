@@ -0,0 +1,269 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.file.StandardCopyOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+// Binary copy of a week XML, kept next to it as week.xml.cache. A whole week is read into memory,
+// a single subtree through a memory mapping, so that only the nodes it needs are touched.
+// The XML stays the source of truth: the cache records the modification time and size of the XML
+// it was made from and is ignored as soon as they differ. Journals are not included.
+//
+// Format: header, nodes, string table. Nodes are stored breadth-first, so the children of a node
+// are consecutive; each node holds its text index and flags, its first child and its child count.
+// Equal texts share one entry of the string table.
+//
+// int magic, int version, long xml time (ns), long xml size, int node count, int string count
+// per node:   int (text index + 1) << 8 | flags, int first child, int child count
+// strings:    int offset per string and one behind the last, relative to the data; UTF-8 data
+public final class BinaryTaskFile {
+
+    private static final int MAGIC = 0x53504231; // "SPB1"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+    private static final int NODE_BYTES = 12;
+
+    // Die Text-Indizes teilen sich ein int mit den Flags
+    private static final int MAX_STRINGS = (1 << 23) - 1;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int stringCount;
+    private final int offsetsStart;
+    private final int dataStart;
+
+    // Decoded on first use
+    private final String[] strings;
+
+    private BinaryTaskFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        nodeCount = buffer.getInt(24);
+        stringCount = buffer.getInt(28);
+        offsetsStart = HEADER_BYTES + nodeCount * NODE_BYTES;
+        dataStart = offsetsStart + (stringCount + 1) * 4;
+        strings = new String[stringCount];
+    }
+
+    public static Path fileFor(File weekFile) {
+        return Path.of(weekFile.getPath() + ".cache");
+    }
+
+    // The whole week as stored in the XML, null if there is no valid cache for it
+    public static Tasks read(File weekFile) {
+        BinaryTaskFile file = open(weekFile, false);
+        if (file == null) return null;
+
+        try {
+            Tasks tasks = new Tasks();
+            file.readAll(tasks.getRoot());
+            return tasks;
+        } catch (RuntimeException e) {
+            // Beschädigter Cache, die Woche wird aus dem XML gelesen
+            return null;
+        }
+    }
+
+    // A single task and its subtree, without decoding the rest of the week.
+    // Null if there is no valid cache, IndexOutOfBoundsException if the path does not exist.
+    public static Task readSubtree(File weekFile, int[] path) {
+        BinaryTaskFile file = open(weekFile, true);
+        if (file == null) return null;
+
+        int node = 0;
+        for (int index : path) {
+            Objects.checkIndex(index, file.childCount(node));
+            node = file.firstChild(node) + index;
+        }
+
+        try {
+            Task task = file.createTask(node);
+            file.readTree(task, node);
+            return task;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Reads the whole cache into memory unless mapped. A mapping stays until it is garbage collected
+    // and keeps the file from being replaced or deleted on Windows, so only single subtrees are mapped.
+    private static BinaryTaskFile open(File weekFile, boolean mapped) {
+        Path path = fileFor(weekFile);
+        try (FileChannel channel = FileChannel.open(path)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return null;
+
+            // Die Abbildung bleibt nach dem Schließen des Kanals gültig
+            ByteBuffer buffer = mapped ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : read(channel, (int) size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return null;
+
+            Path xml = weekFile.toPath();
+            if (buffer.getLong(8) != Files.getLastModifiedTime(xml).to(NANOSECONDS) || buffer.getLong(16) != Files.size(xml)) {
+                return null;
+            }
+
+            int nodeCount = buffer.getInt(24);
+            int stringCount = buffer.getInt(28);
+            if (nodeCount < 1 || stringCount < 0 || HEADER_BYTES + (long) nodeCount * NODE_BYTES + (stringCount + 1L) * 4 > size) {
+                return null;
+            }
+            return new BinaryTaskFile(buffer);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    // One pass over the nodes; every parent comes before its children
+    private void readAll(Task root) {
+        Task[] tasks = new Task[nodeCount];
+        tasks[0] = root;
+        for (int node = 0; node < nodeCount; node++) {
+            int count = childCount(node);
+            if (count == 0) continue;
+
+            int first = firstChild(node);
+            for (int i = first; i < first + count; i++) {
+                tasks[i] = createTask(i);
+            }
+            tasks[node].addChildren(Arrays.asList(tasks).subList(first, first + count));
+        }
+    }
+
+    // Adds the descendants of the node below the task, level by level
+    private void readTree(Task task, int node) {
+        Deque<Task> tasks = new ArrayDeque<>();
+        Deque<Integer> nodes = new ArrayDeque<>();
+        tasks.add(task);
+        nodes.add(node);
+
+        while (!tasks.isEmpty()) {
+            Task parent = tasks.poll();
+            int parentNode = nodes.poll();
+            int count = childCount(parentNode);
+            if (count == 0) continue;
+
+            int first = firstChild(parentNode);
+            Task[] children = new Task[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = createTask(first + i);
+                if (childCount(first + i) > 0) {
+                    tasks.add(children[i]);
+                    nodes.add(first + i);
+                }
+            }
+            parent.addChildren(Arrays.asList(children));
+        }
+    }
+
+    private Task createTask(int node) {
+        int textAndFlags = buffer.getInt(HEADER_BYTES + node * NODE_BYTES);
+        int text = (textAndFlags >>> 8) - 1;
+        Task task = new Task(text >= 0 ? string(text) : null);
+        task.setFlags(textAndFlags & 0xFF);
+        return task;
+    }
+
+    private int firstChild(int node) {
+        return buffer.getInt(HEADER_BYTES + node * NODE_BYTES + 4);
+    }
+
+    private int childCount(int node) {
+        return buffer.getInt(HEADER_BYTES + node * NODE_BYTES + 8);
+    }
+
+    private String string(int index) {
+        String string = strings[index];
+        if (string == null) {
+            int start = buffer.getInt(offsetsStart + index * 4);
+            int end = buffer.getInt(offsetsStart + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(dataStart + start, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    // Writes the cache for the week below root, read from the XML when it had the given time and size.
+    // Returns false if the week is too large for the format; a previous cache is removed then.
+    public static boolean write(File weekFile, ReadOnlyTask root, long xmlTime, long xmlSize) throws IOException {
+        // Breitensuche: die Kinder eines Knotens liegen hintereinander
+        List<ReadOnlyTask> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.addAll(nodes.get(i).getChildren());
+        }
+
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        for (ReadOnlyTask task : nodes) {
+            String text = task.getText();
+            if (text != null && stringIndexes.putIfAbsent(text, strings.size()) == null) {
+                strings.add(text.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Path file = fileFor(weekFile);
+        if (strings.size() > MAX_STRINGS) {
+            Files.deleteIfExists(file);
+            return false;
+        }
+
+        // Eigene temporäre Datei, da eine Woche gleichzeitig im Hintergrund gelesen werden kann
+        Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(xmlTime);
+            out.writeLong(xmlSize);
+            out.writeInt(nodes.size());
+            out.writeInt(strings.size());
+
+            int next = 1;
+            for (ReadOnlyTask task : nodes) {
+                String text = task.getText();
+                int textIndex = text != null ? stringIndexes.get(text) + 1 : 0;
+                int childCount = task.getChildren().size();
+                out.writeInt(textIndex << 8 | task.getFlags() & 0xFF);
+                out.writeInt(next);
+                out.writeInt(childCount);
+                next += childCount;
+            }
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+        Files.move(tmpFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        return true;
+    }
+
+}
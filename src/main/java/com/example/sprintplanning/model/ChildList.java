@@ -0,0 +1,234 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// Children of a task; keeps the parent and the position of every element up to date.
+// Positions behind a change are renumbered lazily, so indexOf is O(1) for unchanged prefixes
+// and amortized O(1) for repeated lookups after a change.
+final class ChildList extends AbstractList<Task> implements RandomAccess {
+
+    private final Task owner;
+
+    private Task[] elements;
+    private int size;
+
+    // Elements below this position know their index, the rest are renumbered on demand
+    private int valid;
+
+    ChildList(Task owner) {
+        this.owner = owner;
+        this.elements = new Task[4];
+    }
+
+    @Override
+    public Task get(int index) {
+        Objects.checkIndex(index, size);
+        return elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Objects.checkIndex(index, size);
+        Task old = elements[index];
+        if (old == task) return old;
+
+        adopt(task);
+        release(old);
+        elements[index] = task;
+        task.index = index;
+        owner.discardSnapshot();
+
+        int[] delta = new int[Progress.COUNTERS];
+        task.addTotalsTo(delta, 1);
+        old.addTotalsTo(delta, -1);
+        owner.progressChanged(delta);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        Objects.checkIndex(index, size + 1);
+        adopt(task);
+        grow(1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = task;
+        size++;
+        invalidate(index);
+        modCount++;
+        owner.discardSnapshot();
+
+        int[] delta = new int[Progress.COUNTERS];
+        task.addTotalsTo(delta, 1);
+        owner.progressChanged(delta);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Task> tasks) {
+        return addAll(size, tasks);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Task> tasks) {
+        Objects.checkIndex(index, size + 1);
+        Task[] added = tasks.toArray(new Task[0]);
+        if (added.length == 0) return false;
+
+        // Die Zähler aller neuen Kinder gehen gemeinsam an die Vorfahren
+        int[] delta = new int[Progress.COUNTERS];
+        for (Task task : added) {
+            adopt(task);
+            task.addTotalsTo(delta, 1);
+        }
+        grow(added.length);
+        System.arraycopy(elements, index, elements, index + added.length, size - index);
+        System.arraycopy(added, 0, elements, index, added.length);
+        size += added.length;
+        invalidate(index);
+        modCount++;
+        owner.discardSnapshot();
+        owner.progressChanged(delta);
+        return true;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Objects.checkIndex(index, size);
+        Task task = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        release(task);
+        invalidate(index);
+        modCount++;
+        owner.discardSnapshot();
+
+        int[] delta = new int[Progress.COUNTERS];
+        task.addTotalsTo(delta, -1);
+        owner.progressChanged(delta);
+        return task;
+    }
+
+    @Override
+    protected void removeRange(int from, int to) {
+        cut(from, to);
+    }
+
+    // Removes the elements in [from, to) and returns them detached, in order
+    Task[] cut(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        Task[] removed = Arrays.copyOfRange(elements, from, to);
+        int[] delta = new int[Progress.COUNTERS];
+        for (Task task : removed) {
+            release(task);
+            task.addTotalsTo(delta, -1);
+        }
+        System.arraycopy(elements, to, elements, from, size - to);
+        Arrays.fill(elements, size - (to - from), size, null);
+        size -= to - from;
+        invalidate(from);
+        modCount++;
+        owner.discardSnapshot();
+        owner.progressChanged(delta);
+        return removed;
+    }
+
+    // Moves an element within the list, the elements in between shift by one
+    void move(int from, int to) {
+        Objects.checkIndex(from, size);
+        Objects.checkIndex(to, size);
+        if (from == to) return;
+
+        Task task = elements[from];
+        if (from < to) {
+            System.arraycopy(elements, from + 1, elements, from, to - from);
+        } else {
+            System.arraycopy(elements, to, elements, to + 1, from - to);
+        }
+        elements[to] = task;
+
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        if (high < valid) {
+            // Nur der verschobene Bereich ändert sich
+            for (int i = low; i <= high; i++) {
+                elements[i].index = i;
+            }
+        } else {
+            invalidate(low);
+        }
+        modCount++;
+        owner.discardSnapshot();
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Task task && task.parent == owner ? position(task) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Task task && task.parent == owner;
+    }
+
+    @Override
+    public void sort(Comparator<? super Task> comparator) {
+        Arrays.sort(elements, 0, size, comparator);
+        invalidate(0);
+        modCount++;
+        owner.discardSnapshot();
+    }
+
+    // Position of a child of the owner
+    int position(Task task) {
+        int index = task.index;
+        if (index >= 0 && index < valid && elements[index] == task) {
+            // Ein veralteter Index kann auf eine gültige Position zeigen, daher der Vergleich
+            return index;
+        }
+        while (valid < size) {
+            Task next = elements[valid];
+            next.index = valid++;
+            if (next == task) {
+                return next.index;
+            }
+        }
+        throw new IllegalStateException("Task is not a child of its parent: " + task);
+    }
+
+    private void adopt(Task task) {
+        if (task.parent != null) {
+            throw new IllegalArgumentException("Task already has a parent: " + task);
+        }
+        if (task == owner) {
+            throw new IllegalArgumentException("Task cannot be its own child: " + task);
+        }
+        task.parent = owner;
+    }
+
+    private static void release(Task task) {
+        task.parent = null;
+        task.index = -1;
+    }
+
+    private void invalidate(int index) {
+        if (index < valid) {
+            valid = index;
+        }
+    }
+
+    private void grow(int count) {
+        if (size + count > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(size + count, elements.length * 2));
+        }
+    }
+
+}
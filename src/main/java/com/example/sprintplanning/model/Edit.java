@@ -0,0 +1,133 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// A single change to a week plan, addressed by the index path of the task
+public record Edit(Kind kind, int[] path, String value) {
+
+    public enum Kind { NEW, DELETE, INDENT, OUTDENT, MOVE_UP, MOVE_DOWN, SET, CLEAR, RENAME }
+
+    // Only NEW takes the empty path, it adds a top-level task; the others address an existing task
+    public Edit {
+        if (kind != Kind.NEW && path.length == 0) {
+            throw new IllegalArgumentException(kind + " needs the path of a task");
+        }
+    }
+
+    public static Edit newTask(int[] parentPath, String text) { return new Edit(Kind.NEW, parentPath, text); }
+    public static Edit delete(int[] path) { return new Edit(Kind.DELETE, path, null); }
+    public static Edit indent(int[] path) { return new Edit(Kind.INDENT, path, null); }
+    public static Edit outdent(int[] path) { return new Edit(Kind.OUTDENT, path, null); }
+    public static Edit moveUp(int[] path) { return new Edit(Kind.MOVE_UP, path, null); }
+    public static Edit moveDown(int[] path) { return new Edit(Kind.MOVE_DOWN, path, null); }
+    public static Edit rename(int[] path, String text) { return new Edit(Kind.RENAME, path, text); }
+
+    public static Edit flag(int[] path, Flag flag, boolean value) {
+        return new Edit(value ? Kind.SET : Kind.CLEAR, path, flag.name());
+    }
+
+    // Applies the edit to the week below the given root
+    public void applyTo(Task root) {
+        if (kind == Kind.NEW) {
+            resolve(root, path).addChild(new Task(value));
+            return;
+        }
+
+        Task task = resolve(root, path);
+        Task parent = task.getParent();
+        int index = path[path.length - 1];
+
+        switch (kind) {
+            case DELETE -> task.remove();
+            case INDENT -> {
+                if (index <= 0) return;
+                Task prevTask = parent.getChildren().get(index - 1);
+
+                // Die Kinder des Knotens folgen ihm als Geschwister beim neuen Parent
+                task.moveTo(prevTask, prevTask.getChildren().size());
+                task.moveChildrenTo(0, prevTask);
+            }
+            case OUTDENT -> {
+                Task grandParent = parent.getParent();
+                if (grandParent == null) return;
+
+                // Die nachfolgenden Geschwister werden zu Kindern des Knotens
+                parent.moveChildrenTo(index + 1, task);
+                task.moveTo(grandParent, parent.getIndex() + 1);
+            }
+            case MOVE_UP -> {
+                if (index <= 0) return;
+                task.moveTo(index - 1);
+            }
+            case MOVE_DOWN -> {
+                if (index >= parent.getChildren().size() - 1) return;
+                task.moveTo(index + 1);
+            }
+            case SET -> task.set(Flag.valueOf(value), true);
+            case CLEAR -> task.set(Flag.valueOf(value), false);
+            case RENAME -> task.setText(value);
+        }
+    }
+
+    public static Task resolve(Task root, int[] path) {
+        Task task = root;
+        for (int index : path) {
+            task = task.getChildren().get(index);
+        }
+        return task;
+    }
+
+    // Line format: KIND <tab> 0.2.1 <tab> value
+    public String encode() {
+        StringBuilder line = new StringBuilder(kind.name()).append('\t');
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) line.append('.');
+            line.append(path[i]);
+        }
+        if (value != null) {
+            line.append('\t');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> line.append("\\\\");
+                    case '\t' -> line.append("\\t");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    public static Edit decode(String line) {
+        String[] fields = line.split("\t", 3);
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Invalid journal entry: " + line);
+        }
+
+        Kind kind = Kind.valueOf(fields[0]);
+        int[] path = fields[1].isEmpty() ? new int[0] : Arrays.stream(fields[1].split("\\.")).mapToInt(Integer::parseInt).toArray();
+
+        String value = null;
+        if (fields.length == 3) {
+            StringBuilder text = new StringBuilder(fields[2].length());
+            for (int i = 0; i < fields[2].length(); i++) {
+                char c = fields[2].charAt(i);
+                if (c == '\\' && i + 1 < fields[2].length()) {
+                    c = switch (fields[2].charAt(++i)) {
+                        case 't' -> '\t';
+                        case 'n' -> '\n';
+                        case 'r' -> '\r';
+                        default -> fields[2].charAt(i);
+                    };
+                }
+                text.append(c);
+            }
+            value = text.toString();
+        }
+
+        return new Edit(kind, path, value);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+public enum Flag {
+
+    DONE, IMPORTANT, URGENT, OPEN, OPTIONAL, OBSOLETE;
+
+    private static final Flag[] FLAGS = values();
+
+    private final String attribute = name().toLowerCase(Locale.ROOT);
+
+    // Bit of the flag in Task.getFlags()
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    // Name of the XML attribute, e.g. "done"
+    public String attribute() {
+        return attribute;
+    }
+
+    public static Flag forAttribute(String attribute) {
+        for (Flag flag : FLAGS) {
+            if (flag.attribute.equals(attribute)) {
+                return flag;
+            }
+        }
+        return null;
+    }
+
+}
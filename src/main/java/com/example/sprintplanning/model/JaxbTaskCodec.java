@@ -0,0 +1,62 @@
+package com.example.sprintplanning.model;
+
+import jakarta.xml.bind.*;
+
+import java.io.*;
+import java.util.*;
+
+public class JaxbTaskCodec implements TaskCodec {
+
+    // Created on first use, building the context is expensive
+    private Unmarshaller unmarshaller;
+    private Marshaller marshaller;
+
+    @Override
+    public synchronized Tasks read(InputStream in) throws IOException {
+        try {
+            init();
+            return (Tasks) unmarshaller.unmarshal(in);
+        } catch (JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void write(Tasks tasks, OutputStream out) throws IOException {
+        try {
+            init();
+            marshaller.marshal(tasks, out);
+        } catch (JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // JAXB braucht Task-Objekte, Snapshots werden dafür kopiert
+    @Override
+    public void write(List<? extends ReadOnlyTask> tasks, OutputStream out) throws IOException {
+        Tasks copy = new Tasks();
+        for (ReadOnlyTask task : tasks) {
+            copy.getRoot().addChild(Task.copyOf(task));
+        }
+        write(copy, out);
+    }
+
+    @Override
+    public synchronized void prepare() throws IOException {
+        try {
+            init();
+        } catch (JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void init() throws JAXBException {
+        if (marshaller == null) {
+            JAXBContext context = JAXBContext.newInstance(Tasks.class);
+            unmarshaller = context.createUnmarshaller();
+            marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        }
+    }
+
+}
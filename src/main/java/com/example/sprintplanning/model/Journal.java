@@ -0,0 +1,474 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+// Append-only log of the edits made since the week XML was last written.
+//
+// week.xml.journal      edits not yet contained in week.xml
+// week.xml.journal.old  edits contained in a snapshot that is currently being written
+// week.xml.lock         locked while a program has the journal open
+//
+// The first line of a journal holds the state of week.xml its edits apply to. A snapshot only replaces
+// week.xml in that state, a change by another program is merged by SprintPlanningModel.reload, or
+// when the week is opened again if it was closed at the time.
+// Only one program at a time opens the journal of a week; edits appended by a program that does
+// not lock it count as a change by another program as well.
+public class Journal implements Closeable {
+
+    // Another program saving the week releases the lock within this time
+    private static final int LOCK_ATTEMPTS = 10;
+    private static final long LOCK_RETRY_MILLIS = 100;
+
+    // Lock files held in this JVM. A second channel must not even be opened on them: closing it
+    // would release the lock of the first one on some systems.
+    private static final Set<Path> locked = ConcurrentHashMap.newKeySet();
+
+    // "#xml <time ns> <size>", fixed width so that it can be overwritten in place once a snapshot replaced
+    // week.xml. Size -1 stands for a missing week.xml, -2 for a snapshot that is still being written.
+    private static final String HEADER_PREFIX = "#xml ";
+    private static final String PENDING = header(0, -2);
+
+    private final File weekFile;
+    private final Path file;
+    private final Path oldFile;
+
+    private Lock lock;
+    private Writer writer;
+
+    // Bytes written to the journal, another program appended edits if the file is larger
+    private long size;
+    private boolean snapshotPending;
+
+    // Edits dropped on open because they no longer applied to a week.xml changed by another program
+    private List<Edit> conflicts = List.of();
+
+    // Time and size of week.xml, null if it does not exist
+    private WeekCache.Stamp xml;
+
+    private Journal(File weekFile, WeekCache.Stamp xml) {
+        this.weekFile = weekFile;
+        this.xml = xml;
+        file = fileFor(weekFile);
+        oldFile = oldFileFor(weekFile);
+    }
+
+    public static Path fileFor(File weekFile) {
+        return Path.of(weekFile.getPath() + ".journal");
+    }
+
+    public static Path oldFileFor(File weekFile) {
+        return Path.of(weekFile.getPath() + ".journal.old");
+    }
+
+    public static Path lockFileFor(File weekFile) {
+        return Path.of(weekFile.getPath() + ".lock");
+    }
+
+    // The state of week.xml, taken before it is read; the journal has no size here
+    public static WeekCache.Stamp xmlState(File weekFile) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(weekFile.toPath(), BasicFileAttributes.class);
+            return new WeekCache.Stamp(attributes.lastModifiedTime(), attributes.size(), 0);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Opens the journal for appending to tasks that already contain all of its edits;
+    // xml is the state of week.xml the tasks were read from
+    public static Journal open(File weekFile, WeekCache.Stamp xml) throws IOException {
+        return open(weekFile, null, xml);
+    }
+
+    // Replays the journal of the given week on top of the loaded tasks and opens it for appending.
+    // Throws LockedException if another program has it open.
+    public static Journal open(File weekFile, Task root, WeekCache.Stamp xml) throws IOException {
+        Journal journal = new Journal(weekFile, xml);
+        journal.lock = lock(weekFile);
+        try {
+            List<Edit> merged = root != null ? journal.replayAll(root) : null;
+            // Neben einem ungeschriebenen Snapshot gilt der Kopf erst, wenn er geschrieben ist
+            journal.openWriter(Files.exists(journal.oldFile) ? PENDING : header(xml));
+            if (merged != null) {
+                journal.reset(merged, xml);
+            } else if (!Files.exists(journal.oldFile) && PENDING.equals(readHeader(journal.file))) {
+                journal.writeHeader(header(xml));
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            journal.lock.close();
+            throw e;
+        }
+    }
+
+    // Replays the journals as they are if they were written for this week.xml. Otherwise it was changed
+    // by another program while the week was closed: the edits are applied one by one, those that fail
+    // become conflicts, and the others are returned to start the journal over with.
+    private List<Edit> replayAll(Task root) throws IOException {
+        String expected = header(xml);
+        String base = readHeader(file);
+        if (Files.exists(oldFile)) {
+            String oldBase = readHeader(oldFile);
+            boolean written;
+            if (base != null && !base.equals(PENDING)) {
+                // Der Kopf wird erst nach dem Ersetzen des XMLs gesetzt
+                written = true;
+            } else if (expected.equals(oldBase)) {
+                written = false;
+            } else {
+                // Ohne Kopf: Ein neueres XML enthält die Einträge bereits, sonst brach das Schreiben ab
+                written = Files.exists(weekFile.toPath())
+                        && Files.getLastModifiedTime(weekFile.toPath()).compareTo(Files.getLastModifiedTime(oldFile)) > 0;
+            }
+            if (written) {
+                Files.delete(oldFile);
+            } else {
+                base = oldBase;
+            }
+        }
+
+        // Journale ohne Kopf stammen von einer früheren Version
+        if (base == null || base.equals(PENDING) || base.equals(expected)) {
+            if (Files.exists(oldFile)) {
+                replay(oldFile, root);
+            }
+            if (Files.exists(file)) {
+                replay(file, root);
+            }
+            return null;
+        }
+
+        List<Edit> merged = new ArrayList<>();
+        List<Edit> dropped = new ArrayList<>();
+        for (Edit edit : edits()) {
+            try {
+                edit.applyTo(root);
+                merged.add(edit);
+            } catch (RuntimeException e) {
+                dropped.add(edit);
+            }
+        }
+        conflicts = dropped;
+        return merged;
+    }
+
+    // Whether the journal of the week can be replayed as it is on top of week.xml in the given state
+    static boolean isBasedOn(File weekFile, WeekCache.Stamp xml) throws IOException {
+        if (Files.exists(oldFileFor(weekFile))) return false;
+        String header = readHeader(fileFor(weekFile));
+        return header == null || header.equals(header(xml));
+    }
+
+    // Whether week.xml.journal holds edits, an empty one only has its header
+    public static boolean hasEdits(File weekFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(fileFor(weekFile), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith(HEADER_PREFIX)) return true;
+            }
+            return false;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static String header(WeekCache.Stamp xml) {
+        return xml != null ? header(xml.xmlTime().to(NANOSECONDS), xml.xmlSize()) : header(0, -1);
+    }
+
+    private static String header(long xmlTime, long xmlSize) {
+        return String.format(Locale.ROOT, "%s%019d %019d", HEADER_PREFIX, xmlTime, xmlSize);
+    }
+
+    // Null if the journal does not exist or has no header
+    private static String readHeader(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            return line != null && line.startsWith(HEADER_PREFIX) ? line : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // The header has the same length in every state
+    private void writeHeader(String header) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            channel.write(ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)), 0);
+        }
+    }
+
+    private static byte[] withoutHeader(byte[] journal) {
+        byte[] prefix = HEADER_PREFIX.getBytes(StandardCharsets.US_ASCII);
+        if (journal.length < prefix.length || !Arrays.equals(journal, 0, prefix.length, prefix, 0, prefix.length)) {
+            return journal;
+        }
+        int end = prefix.length;
+        while (end < journal.length && journal[end] != '\n') {
+            end++;
+        }
+        return Arrays.copyOfRange(journal, Math.min(end + 1, journal.length), journal.length);
+    }
+
+    // Waits briefly, another program may just be saving the week
+    private static Lock lock(File weekFile) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            Lock lock = tryLock(weekFile);
+            if (lock != null) {
+                return lock;
+            }
+            if (attempt == LOCK_ATTEMPTS) {
+                throw new LockedException(weekFile);
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + lockFileFor(weekFile));
+            }
+        }
+    }
+
+    // The lock of the week, null if another program or journal holds it
+    static Lock tryLock(File weekFile) throws IOException {
+        Path path = lockFileFor(weekFile).toAbsolutePath().normalize();
+        if (!locked.add(path)) return null;
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, CREATE, WRITE);
+            if (channel.tryLock() != null) {
+                return new Lock(path, channel);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            locked.remove(path);
+            throw e;
+        }
+        channel.close();
+        locked.remove(path);
+        return null;
+    }
+
+    // Replays the journal without opening it, the week must not have an unfinished compaction
+    public static void replay(File weekFile, Task root) throws IOException {
+        Path path = fileFor(weekFile);
+        if (Files.exists(path)) {
+            replay(path, root);
+        }
+    }
+
+    // Throws IOException for an entry that cannot be decoded or applied, the week is not loaded then
+    private static void replay(Path path, Task root) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            for (int number = 1; (line = reader.readLine()) != null; number++) {
+                if (line.isEmpty() || line.startsWith(HEADER_PREFIX)) continue;
+                try {
+                    Edit.decode(line).applyTo(root);
+                } catch (RuntimeException e) {
+                    throw damaged(path, number, line, e);
+                }
+            }
+        }
+    }
+
+    private static IOException damaged(Path path, int number, String line, RuntimeException cause) {
+        return new IOException("Damaged journal entry in " + path + ", line " + number + ": " + line, cause);
+    }
+
+    // Whether week.xml or the journal were changed by another program since the journal was opened,
+    // rotated or reset
+    public synchronized boolean isChangedExternally() throws IOException {
+        return isXmlChanged() || isAppendedExternally();
+    }
+
+    private boolean isAppendedExternally() throws IOException {
+        try {
+            return Files.size(file) != size;
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+    }
+
+    // A new journal starts with the header
+    private void openWriter(String header) throws IOException {
+        boolean created = !Files.exists(file) || Files.size(file) == 0;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, CREATE, APPEND);
+        if (created) {
+            writer.write(header + '\n');
+            writer.flush();
+        }
+        size = Files.size(file);
+    }
+
+    public void append(Edit edit) throws IOException {
+        append(List.of(edit));
+    }
+
+    // Writes the edits with a single flush
+    public synchronized void append(List<Edit> edits) throws IOException {
+        if (edits.isEmpty()) return;
+
+        // Fremde Einträge davor bleiben erhalten, isChangedExternally meldet sie
+        for (Edit edit : edits) {
+            String line = edit.encode() + '\n';
+            writer.write(line);
+            size += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.flush();
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    // Moves the current edits aside; they are deleted once the snapshot containing them is written.
+    // Returns the size of the new, empty journal.
+    synchronized long rotate() throws IOException {
+        if (snapshotPending) {
+            throw new IllegalStateException("Previous snapshot of " + file + " is still being written");
+        }
+        // Der Snapshot enthielte die fremden Einträge nicht, sie gingen mit dem alten Journal verloren
+        if (isAppendedExternally()) {
+            throw new IOException(file + " was changed by another program, it has to be reloaded first");
+        }
+
+        writer.close();
+        if (Files.exists(oldFile)) {
+            // Ein früheres Schreiben ist fehlgeschlagen, die Einträge bleiben erhalten
+            Files.write(oldFile, withoutHeader(Files.readAllBytes(file)), APPEND);
+            Files.delete(file);
+        } else {
+            Files.move(file, oldFile, ATOMIC_MOVE);
+        }
+        openWriter(PENDING);
+        snapshotPending = true;
+        return size;
+    }
+
+    // Replaces week.xml with a written snapshot, unless another program changed it in the meantime
+    synchronized void replaceXml(Path snapshotFile) throws IOException {
+        if (!Objects.equals(xml, xmlState(weekFile))) {
+            Files.deleteIfExists(snapshotFile);
+            throw new IOException(weekFile + " was changed by another program, it has to be reloaded first");
+        }
+        Files.move(snapshotFile, weekFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        xml = xmlState(weekFile);
+        // Vor dem Löschen des alten Journals, siehe replayAll
+        writeHeader(header(xml));
+    }
+
+    // Whether week.xml differs from the state the edits apply to
+    private boolean isXmlChanged() throws IOException {
+        return !Objects.equals(xml, xmlState(weekFile));
+    }
+
+    // The edits not yet contained in week.xml, oldest first; includes those of a failed snapshot.
+    // Throws IOException for an entry that cannot be decoded.
+    synchronized List<Edit> edits() throws IOException {
+        if (snapshotPending) {
+            throw new IllegalStateException("Snapshot of " + file + " is still being written");
+        }
+
+        List<Edit> edits = new ArrayList<>();
+        for (Path path : List.of(oldFile, file)) {
+            if (!Files.exists(path)) continue;
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isEmpty() || line.startsWith(HEADER_PREFIX)) continue;
+                try {
+                    edits.add(Edit.decode(line));
+                } catch (RuntimeException e) {
+                    throw damaged(path, i + 1, line, e);
+                }
+            }
+        }
+        return edits;
+    }
+
+    // Starts over on top of a week.xml written by another program: the journal then holds the given edits
+    synchronized void reset(List<Edit> edits, WeekCache.Stamp xml) throws IOException {
+        if (snapshotPending) {
+            throw new IllegalStateException("Snapshot of " + file + " is still being written");
+        }
+
+        writer.close();
+        Files.deleteIfExists(oldFile);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, CREATE, TRUNCATE_EXISTING, WRITE);
+        this.xml = xml;
+        String header = header(xml) + '\n';
+        writer.write(header);
+        writer.flush();
+        size = header.length();
+        append(edits);
+    }
+
+    List<Edit> getConflicts() {
+        return conflicts;
+    }
+
+    synchronized void snapshotWritten() throws IOException {
+        snapshotPending = false;
+        Files.deleteIfExists(oldFile);
+    }
+
+    synchronized void snapshotFailed() {
+        snapshotPending = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            lock.close();
+        }
+    }
+
+    // Held on week.xml.lock; closing the channel releases it
+    static final class Lock implements Closeable {
+
+        private final Path file;
+        private final FileChannel channel;
+
+        private Lock(Path file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                locked.remove(file);
+            }
+        }
+
+    }
+
+    public static class LockedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        LockedException(File weekFile) {
+            super(weekFile + " is open in another program");
+        }
+
+    }
+
+}
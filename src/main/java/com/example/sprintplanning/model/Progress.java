@@ -0,0 +1,61 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// Counts over a set of tasks, e.g. the descendants of a task or a whole week.
+// Urgent, important, optional and obsolete only count tasks that are not done yet.
+public record Progress(int tasks, int done, int urgent, int important, int optional, int obsolete) {
+
+    public static final Progress NONE = new Progress(0, 0, 0, 0, 0, 0);
+
+    // Length of the counter arrays kept by Task, in the order of the components
+    static final int COUNTERS = 6;
+
+    private static final int DONE = Flag.DONE.mask();
+    private static final Flag[] OPEN_COUNTERS = { Flag.URGENT, Flag.IMPORTANT, Flag.OPTIONAL, Flag.OBSOLETE };
+
+    public int open() {
+        return tasks - done;
+    }
+
+    // The tasks and all their descendants, e.g. the top level of a week
+    public static Progress of(List<? extends ReadOnlyTask> tasks) {
+        int[] counters = new int[COUNTERS];
+        for (ReadOnlyTask task : tasks) {
+            addTask(counters, task.getFlags(), 1);
+            task.getProgress().addTo(counters);
+        }
+        return of(counters);
+    }
+
+    private void addTo(int[] counters) {
+        counters[0] += tasks;
+        counters[1] += done;
+        counters[2] += urgent;
+        counters[3] += important;
+        counters[4] += optional;
+        counters[5] += obsolete;
+    }
+
+    static Progress of(int[] counters) {
+        if (counters == null) {
+            return NONE;
+        }
+        return new Progress(counters[0], counters[1], counters[2], counters[3], counters[4], counters[5]);
+    }
+
+    // Adds sign times the contribution of a single task with the given flags
+    static void addTask(int[] counters, int flags, int sign) {
+        counters[0] += sign;
+        if ((flags & DONE) != 0) {
+            counters[1] += sign;
+            return;
+        }
+        for (int i = 0; i < OPEN_COUNTERS.length; i++) {
+            if ((flags & OPEN_COUNTERS[i].mask()) != 0) {
+                counters[2 + i] += sign;
+            }
+        }
+    }
+
+}
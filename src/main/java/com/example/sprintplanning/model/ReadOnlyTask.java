@@ -0,0 +1,23 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// What writers, exporters and the search index read from a task; implemented by the mutable Task
+// and by the immutable TaskSnapshot, which can be read on any thread
+public interface ReadOnlyTask {
+
+    String getText();
+
+    // One bit per Flag, see Flag.mask()
+    int getFlags();
+
+    default boolean is(Flag flag) {
+        return (getFlags() & flag.mask()) != 0;
+    }
+
+    List<? extends ReadOnlyTask> getChildren();
+
+    // Counts over all descendants, not including the task itself
+    Progress getProgress();
+
+}
@@ -0,0 +1,163 @@
+package com.example.sprintplanning.model;
+
+import com.example.sprintplanning.model.SprintPlanningModel.*;
+
+import java.io.*;
+import java.time.*;
+import java.util.concurrent.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+public class SaveScheduler implements AutoCloseable {
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(500);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(5);
+
+    private final SprintPlanningModel model;
+
+    // Executor of the thread that mutates the model (e.g. Platform::runLater)
+    private final Executor ownerExecutor;
+
+    private final long quietPeriod;
+    private final long maxDelay;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    // Guarded by this
+    private ScheduledFuture<?> pending;
+    private long firstRequest;
+    private int requests;
+
+    // Statistics, guarded by this
+    private long saves;
+    private long coalesced;
+    private long totalLatency;
+    private long maxLatency;
+
+    public SaveScheduler(SprintPlanningModel model, Executor ownerExecutor) {
+        this(model, ownerExecutor, DEFAULT_QUIET_PERIOD, DEFAULT_MAX_DELAY);
+    }
+
+    public SaveScheduler(SprintPlanningModel model, Executor ownerExecutor, Duration quietPeriod, Duration maxDelay) {
+        this.model = model;
+        this.ownerExecutor = ownerExecutor;
+        this.quietPeriod = quietPeriod.toNanos();
+        this.maxDelay = maxDelay.toNanos();
+
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "save-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    // Called on the owner thread after every change
+    public synchronized void requestSave() {
+        long now = System.nanoTime();
+        if (requests++ == 0) {
+            firstRequest = now;
+        }
+
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        // Warte auf Ruhe, aber nie länger als maxDelay seit der ersten Änderung
+        long delay = Math.min(quietPeriod, Math.max(0, firstRequest + maxDelay - now));
+        pending = executor.schedule(this::onTimer, delay, NANOSECONDS);
+    }
+
+    // Called on the owner thread, e.g. before switching the week or on exit
+    public void flush() {
+        // Erst ein laufendes Schreiben abwarten, dann den Stand sichern
+        awaitIdle();
+        Snapshot snapshot = takeSnapshot();
+        await(executor.submit(() -> write(snapshot)));
+    }
+
+    // Waits until a write that is already running or submitted has finished
+    public void awaitIdle() {
+        await(executor.submit(() -> {}));
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(saves, coalesced, saves > 0 ? totalLatency / saves : 0, maxLatency);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+    }
+
+    private void onTimer() {
+        // The snapshot has to be taken on the owner thread, the write happens here
+        ownerExecutor.execute(() -> {
+            Snapshot snapshot = takeSnapshot();
+            if (snapshot != null) {
+                executor.execute(() -> write(snapshot));
+            }
+        });
+    }
+
+    private synchronized Snapshot takeSnapshot() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+
+        if (requests == 0) {
+            return null;
+        }
+
+        coalesced += requests - 1;
+        requests = 0;
+        try {
+            return model.snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        if (snapshot == null) return;
+
+        long start = System.nanoTime();
+        try {
+            model.saveWeekPlan(snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        long latency = System.nanoTime() - start;
+
+        synchronized (this) {
+            saves++;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+        }
+    }
+
+    public record Statistics(long saves, long coalesced, long averageLatency, long maxLatency) {
+
+        @Override
+        public String toString() {
+            return String.format("Saves: %d, coalesced: %d, latency avg %.1f ms, max %.1f ms",
+                    saves, coalesced, averageLatency / 1e6, maxLatency / 1e6);
+        }
+
+    }
+
+}
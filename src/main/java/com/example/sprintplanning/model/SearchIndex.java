@@ -0,0 +1,283 @@
+package com.example.sprintplanning.model;
+
+import com.example.sprintplanning.model.WeekCache.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+import static java.nio.file.StandardCopyOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+// Inverted index over the task texts of all weeks, persisted in a sidecar file.
+// Also keeps the progress of every week, so it is known without reading the week.
+public class SearchIndex {
+
+    private static final int VERSION = 2;
+
+    private final Path file;
+
+    // Guarded by this
+    private final Map<String, WeekEntry> weeks = new HashMap<>();
+    private final TreeMap<String, Map<String, List<int[]>>> postings = new TreeMap<>();
+    private boolean loaded;
+    private boolean dirty;
+
+    public SearchIndex(Path file) {
+        this.file = file;
+    }
+
+    public synchronized List<Hit> findTerm(String term) {
+        List<Hit> hits = new ArrayList<>();
+        collect(postings.get(term.toLowerCase(Locale.ROOT)), hits);
+        return hits;
+    }
+
+    public synchronized List<Hit> findPrefix(String prefix) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        List<Hit> hits = new ArrayList<>();
+        for (Map<String, List<int[]>> byWeek : postings.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            collect(byWeek, hits);
+        }
+        return hits;
+    }
+
+    // Null if the week is not indexed
+    public synchronized Progress getProgress(String week) {
+        WeekEntry entry = weeks.get(week);
+        return entry != null ? entry.progress : null;
+    }
+
+    private static void collect(Map<String, List<int[]>> byWeek, List<Hit> hits) {
+        if (byWeek == null) return;
+        for (Map.Entry<String, List<int[]>> entry : byWeek.entrySet()) {
+            for (int[] path : entry.getValue()) {
+                hits.add(new Hit(entry.getKey(), path));
+            }
+        }
+    }
+
+    // Indexes all given weeks whose files changed since they were indexed, in parallel
+    public void build(Collection<File> weekFiles, WeekLoader loader) {
+        synchronized (this) {
+            if (!loaded) {
+                loaded = true;
+                try {
+                    load();
+                } catch (IOException e) {
+                    // Beschädigter oder veralteter Index wird neu aufgebaut
+                    weeks.clear();
+                    postings.clear();
+                }
+            }
+        }
+
+        weekFiles.parallelStream().forEach(weekFile -> {
+            Stamp stamp = Stamp.of(weekFile);
+            synchronized (this) {
+                WeekEntry entry = weeks.get(weekFile.getName());
+                if (stamp != null && entry != null && stamp.equals(entry.stamp)) return;
+            }
+            try {
+                update(weekFile.getName(), loader.load(weekFile).getTasks(), stamp);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // The stamp describes the file state the tasks were read from, null if unknown
+    public void update(String week, List<? extends ReadOnlyTask> tasks, Stamp stamp) {
+        Map<String, List<int[]>> terms = new HashMap<>();
+        collectTerms(tasks, new int[0], terms);
+        Progress progress = Progress.of(tasks);
+
+        synchronized (this) {
+            remove(week);
+            weeks.put(week, new WeekEntry(stamp, progress, terms));
+            for (Map.Entry<String, List<int[]>> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(week, entry.getValue());
+            }
+            dirty = true;
+        }
+    }
+
+    public synchronized void remove(String week) {
+        WeekEntry entry = weeks.remove(week);
+        if (entry == null) return;
+
+        for (String term : entry.terms.keySet()) {
+            Map<String, List<int[]>> byWeek = postings.get(term);
+            byWeek.remove(week);
+            if (byWeek.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        dirty = true;
+    }
+
+    private static void collectTerms(List<? extends ReadOnlyTask> tasks, int[] parentPath, Map<String, List<int[]>> terms) {
+        for (int i = 0; i < tasks.size(); i++) {
+            ReadOnlyTask task = tasks.get(i);
+            int[] path = Arrays.copyOf(parentPath, parentPath.length + 1);
+            path[parentPath.length] = i;
+
+            if (task.getText() != null) {
+                for (String term : tokenize(task.getText())) {
+                    terms.computeIfAbsent(term, t -> new ArrayList<>()).add(path);
+                }
+            }
+            collectTerms(task.getChildren(), path, terms);
+        }
+    }
+
+    // Lower-case runs of letters and digits, each term once
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    // Format: version, weeks; per week name, stamp, progress and terms; per term its paths
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != VERSION) return;
+
+            int weekCount = in.readInt();
+            for (int w = 0; w < weekCount; w++) {
+                String week = in.readUTF();
+                Stamp stamp = in.readBoolean()
+                        ? new Stamp(FileTime.from(in.readLong(), NANOSECONDS), in.readLong(), in.readLong())
+                        : null;
+                Progress progress = new Progress(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+
+                int termCount = in.readInt();
+                Map<String, List<int[]>> terms = new HashMap<>(termCount * 2);
+                for (int t = 0; t < termCount; t++) {
+                    String term = in.readUTF();
+                    int pathCount = in.readInt();
+                    List<int[]> paths = new ArrayList<>(pathCount);
+                    for (int p = 0; p < pathCount; p++) {
+                        int[] path = new int[in.readUnsignedShort()];
+                        for (int i = 0; i < path.length; i++) {
+                            path[i] = in.readInt();
+                        }
+                        paths.add(path);
+                    }
+                    terms.put(term, paths);
+                    postings.computeIfAbsent(term, k -> new HashMap<>()).put(week, paths);
+                }
+                weeks.put(week, new WeekEntry(stamp, progress, terms));
+            }
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        if (!dirty) return;
+
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(VERSION);
+            out.writeInt(weeks.size());
+            for (Map.Entry<String, WeekEntry> week : weeks.entrySet()) {
+                out.writeUTF(week.getKey());
+
+                Stamp stamp = week.getValue().stamp;
+                out.writeBoolean(stamp != null);
+                if (stamp != null) {
+                    out.writeLong(stamp.xmlTime().to(NANOSECONDS));
+                    out.writeLong(stamp.xmlSize());
+                    out.writeLong(stamp.journalSize());
+                }
+
+                Progress progress = week.getValue().progress;
+                out.writeInt(progress.tasks());
+                out.writeInt(progress.done());
+                out.writeInt(progress.urgent());
+                out.writeInt(progress.important());
+                out.writeInt(progress.optional());
+                out.writeInt(progress.obsolete());
+
+                Map<String, List<int[]>> terms = week.getValue().terms;
+                out.writeInt(terms.size());
+                for (Map.Entry<String, List<int[]>> term : terms.entrySet()) {
+                    out.writeUTF(term.getKey());
+                    out.writeInt(term.getValue().size());
+                    for (int[] path : term.getValue()) {
+                        out.writeShort(path.length);
+                        for (int index : path) {
+                            out.writeInt(index);
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(tmpFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SearchIndex <folder> <prefix>");
+            System.exit(1);
+        }
+
+        Path folder = Path.of(args[0]);
+        List<File> weekFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.xml")) {
+            stream.forEach(path -> weekFiles.add(path.toFile()));
+        }
+        for (String week : WeekArchive.weeks(folder)) {
+            File weekFile = folder.resolve(week).toFile();
+            if (!weekFiles.contains(weekFile)) {
+                weekFiles.add(weekFile);
+            }
+        }
+
+        SprintPlanningModel model = new SprintPlanningModel();
+        SearchIndex index = new SearchIndex(folder.resolve(".search-index"));
+
+        long start = System.nanoTime();
+        index.build(weekFiles, model::readWeek);
+        long built = System.nanoTime();
+        List<Hit> hits = index.findPrefix(args[1]);
+        long found = System.nanoTime();
+        index.save();
+
+        hits.forEach(System.out::println);
+        System.out.printf("%d hits in %d weeks, build %.1f ms, query %.3f ms%n",
+                hits.size(), weekFiles.size(), (built - start) / 1e6, (found - built) / 1e6);
+    }
+
+    public interface WeekLoader {
+        Tasks load(File weekFile) throws IOException;
+    }
+
+    private record WeekEntry(Stamp stamp, Progress progress, Map<String, List<int[]>> terms) {}
+
+    public record Hit(String week, int[] path) {
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(".", week + " ", "");
+            for (int index : path) {
+                joiner.add(String.valueOf(index));
+            }
+            return joiner.toString();
+        }
+
+    }
+
+}
@@ -1,39 +1,425 @@
 package com.example.sprintplanning.model;
 
-import jakarta.xml.bind.*;
-
 import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.time.*;
+import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static java.util.Collections.*;
+import static java.util.concurrent.TimeUnit.*;
 
 public class SprintPlanningModel {
 
-    private final Unmarshaller unmarshaller;
-    private final Marshaller marshaller;
+    // Journal size after which the week is compacted back into its XML file
+    public static final long COMPACTION_THRESHOLD = 64 * 1024;
+
+    private final TaskCodec codec;
+
+    // -Dsprintplanning.binaryCache=false reads every week from its XML
+    private final boolean binaryCache = !"false".equals(System.getProperty("sprintplanning.binaryCache"));
+
+    private final WeekCache cache = new WeekCache();
+
+    // Parses and indexes weeks in the background
+    private final ExecutorService background = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "model-background");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final Map<Path, CompletableFuture<Void>> prefetching = new ConcurrentHashMap<>();
+
+    private SearchIndex searchIndex;
+
+    private TaskListener taskListener;
 
     private File currentFile;
     private Tasks tasks;
+    private Journal journal;
 
-    public SprintPlanningModel() throws JAXBException {
-        JAXBContext context = JAXBContext.newInstance(Tasks.class);
-        unmarshaller = context.createUnmarshaller();
-        marshaller = context.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    // Local edits dropped when the current week was loaded, see getConflicts
+    private List<Edit> conflicts = emptyList();
+
+    // The only thread that changes the current week, the one that loaded it
+    private Thread writer;
+
+    // State of the current week after the last edit or batch, for readers on other threads
+    private volatile TaskSnapshot published;
+
+    // Open batches and what they deferred
+    private int batchDepth;
+    private final List<Edit> batchEdits = new ArrayList<>();
+    private final Set<Task> batchChanges = new LinkedHashSet<>();
+
+    public SprintPlanningModel() {
+        this(TaskCodec.getDefault());
     }
 
-    public void loadWeekPlan(String pathname) throws JAXBException {
+    public SprintPlanningModel(TaskCodec codec) {
+        this.codec = codec;
+    }
+
+    // Prepares the codec in the background, e.g. the JAXB context, while the caller does other work
+    public CompletableFuture<Void> prepare() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                codec.prepare();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, background);
+    }
+
+    // The calling thread becomes the writer of the week, see checkWriter.
+    // Throws Journal.LockedException if another program has the week open; no week is loaded then.
+    public void loadWeekPlan(String pathname) throws IOException {
+        if (journal != null) {
+            checkWriter();
+            boolean stale = journal.isChangedExternally();
+            journal.close();
+            journal = null;
+            tasks.setListener(null);
+            // Die bisherige Woche für ein schnelles Zurückwechseln aufheben, sofern sie zum XML passt
+            if (!stale) {
+                WeekCache.Stamp stamp = WeekCache.Stamp.of(currentFile);
+                cache.put(currentFile, tasks, stamp);
+                reindex(currentFile, published, stamp);
+            }
+        }
+
         currentFile = new File(pathname);
-        tasks = (Tasks) unmarshaller.unmarshal(currentFile);
+        try {
+            WeekCache.Stamp xml = Journal.xmlState(currentFile);
+            // Der Cache enthält das Journal, wie es auf das XML angewendet wurde
+            Tasks cached = cache.take(currentFile);
+            if (cached != null && Journal.isBasedOn(currentFile, xml)) {
+                tasks = cached;
+                journal = Journal.open(currentFile, xml);
+            } else {
+                tasks = read(currentFile);
+                journal = Journal.open(currentFile, tasks.getRoot(), xml);
+            }
+        } catch (IOException | RuntimeException e) {
+            currentFile = null;
+            tasks = null;
+            published = null;
+            conflicts = emptyList();
+            throw e;
+        }
+        conflicts = journal.getConflicts();
+        tasks.setListener(taskListener);
+        writer = Thread.currentThread();
+        publish();
+    }
+
+    // Edits, batches and snapshots of the week are confined to one thread, so the tasks need no locks;
+    // other threads read the published snapshots
+    private void checkWriter() {
+        if (Thread.currentThread() != writer) {
+            throw new IllegalStateException(currentFile + " is changed on " + writer.getName() + ", not on " + Thread.currentThread().getName());
+        }
+    }
+
+    // Only the tasks changed since the last snapshot are copied
+    private void publish() {
+        published = tasks.getRoot().snapshot();
+    }
+
+    // The current week as of the last completed edit or batch, null if none is loaded.
+    // Immutable, so it can be saved, indexed or exported on any thread without copying.
+    public TaskSnapshot getSnapshot() {
+        return published;
+    }
+
+    // Uses the binary cache next to the XML if it is up to date, otherwise parses the XML and writes the cache.
+    // Archived weeks are inflated from their archive, they have no binary cache.
+    private Tasks read(File file) throws IOException {
+        if (!file.exists()) {
+            WeekArchive archive = WeekArchive.forWeek(file);
+            if (archive != null) {
+                try (InputStream in = archive.read(file.getName())) {
+                    return codec.read(in);
+                }
+            }
+        }
+        if (binaryCache) {
+            Tasks cached = BinaryTaskFile.read(file);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Vor dem Lesen, damit eine gleichzeitige Änderung den Cache ungültig macht
+        FileTime time = Files.getLastModifiedTime(file.toPath());
+        long size = Files.size(file.toPath());
+        Tasks parsed;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            parsed = codec.read(in);
+        }
+        if (binaryCache) {
+            writeBinaryCache(file, parsed.getRoot(), time, size);
+        }
+        return parsed;
+    }
+
+    private static void writeBinaryCache(File file, ReadOnlyTask root, FileTime time, long size) {
+        try {
+            BinaryTaskFile.write(file, root, time.to(NANOSECONDS), size);
+        } catch (IOException e) {
+            // Ohne Cache wird die Woche beim nächsten Mal wieder aus dem XML gelesen
+            e.printStackTrace();
+        }
+    }
+
+    // Reads the XML file of a week and replays its journal, without touching the current week
+    public Tasks readWeek(File file) throws IOException {
+        Tasks parsed = read(file);
+        Journal.replay(file, parsed.getRoot());
+        return parsed;
+    }
+
+    // One task with its subtree; for weeks without journal edits only that part of the binary cache is read.
+    // The task is detached from its week if it came from the cache.
+    public Task readTask(File file, int[] path) throws IOException {
+        if (binaryCache && !Journal.hasEdits(file) && !Files.exists(Journal.oldFileFor(file))) {
+            Task task = BinaryTaskFile.readSubtree(file, path);
+            if (task != null) {
+                return task;
+            }
+        }
+        return Edit.resolve(readWeek(file).getRoot(), path);
+    }
+
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    // Receives text and flag changes of the current week, on the thread that applies the edits
+    public void setTaskListener(TaskListener taskListener) {
+        this.taskListener = taskListener;
+        if (tasks != null && batchDepth == 0) {
+            tasks.setListener(taskListener);
+        }
+    }
+
+    private void reindex(File file, TaskSnapshot root, WeekCache.Stamp stamp) {
+        if (searchIndex != null) {
+            background.execute(() -> searchIndex.update(file.getName(), root.getChildren(), stamp));
+        }
+    }
+
+    // Parses the week in the background; once the future is done, loadWeekPlan takes it from the cache
+    public CompletableFuture<Void> prefetch(File file) {
+        if (file.equals(currentFile)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path key = file.toPath().toAbsolutePath().normalize();
+        return prefetching.computeIfAbsent(key, k -> {
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                if (cache.contains(file)) return;
+
+                WeekCache.Stamp stamp = WeekCache.Stamp.of(file);
+                if (stamp == null) return;
+                try {
+                    Tasks week = readWeek(file);
+                    // Der erste Snapshot entsteht hier, beim Laden wird er nur noch übernommen
+                    week.getRoot().snapshot();
+                    cache.put(file, week, stamp);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, background);
+            future.whenComplete((result, e) -> prefetching.remove(k));
+            return future;
+        });
     }
 
-    public void saveWeekPlan() throws JAXBException {
-        if (currentFile != null && tasks != null) {
-            marshaller.marshal(tasks, currentFile);
+    // Speculatively parses the previous and the next week of the current one
+    public void prefetchAdjacent() {
+        if (currentFile == null) return;
+
+        for (int weeks : new int[] { 1, -1 }) {
+            File adjacent = adjacentWeek(currentFile, weeks);
+            if (adjacent != null && WeekArchive.exists(adjacent)) {
+                prefetch(adjacent);
+            }
+        }
+    }
+
+    // Week files are named by the date of their Monday, e.g. 2025-07-14.xml
+    public static File adjacentWeek(File file, int weeks) {
+        String name = file.getName();
+        if (!name.endsWith(".xml")) return null;
+
+        try {
+            LocalDate date = LocalDate.parse(name.substring(0, name.length() - ".xml".length()));
+            return new File(file.getParentFile(), date.plusWeeks(weeks) + ".xml");
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public void saveWeekPlan() throws IOException {
+        Snapshot snapshot = snapshot();
+        if (snapshot != null) {
+            saveWeekPlan(snapshot);
+        }
+    }
+
+    // Applies the edit to the current week and appends it to the journal
+    public void apply(Edit edit) throws IOException {
+        checkWriter();
+        edit.applyTo(tasks.getRoot());
+        if (batchDepth > 0) {
+            batchEdits.add(edit);
+        } else {
+            publish();
+            journal.append(edit);
         }
     }
 
-    public static void main(String[] args) throws JAXBException {
+    // Applies the edits of the transaction as one unit: they reach the journal in a single write
+    // and the task listener hears about every changed task once, after the last edit.
+    // Edits are not rolled back if the transaction fails. Batches may be nested.
+    public void batch(Transaction transaction) throws IOException {
+        checkWriter();
+        if (batchDepth++ == 0) {
+            tasks.setListener(batchChanges::add);
+        }
+        try {
+            transaction.run();
+        } finally {
+            if (--batchDepth == 0) {
+                commitBatch();
+            }
+        }
+    }
+
+    private void commitBatch() throws IOException {
+        tasks.setListener(taskListener);
+        publish();
+        List<Task> changed = new ArrayList<>(batchChanges);
+        batchChanges.clear();
+        try {
+            journal.append(batchEdits);
+        } finally {
+            batchEdits.clear();
+            if (taskListener != null) {
+                changed.forEach(taskListener::taskChanged);
+            }
+        }
+    }
+
+    public boolean isCompactionDue() {
+        return journal != null && journal.size() >= COMPACTION_THRESHOLD;
+    }
+
+    // The published state of the current week together with the journal rotated at exactly that state.
+    // Taken on the writer thread, the journal must not receive edits in between.
+    public Snapshot snapshot() throws IOException {
+        if (currentFile == null || tasks == null) {
+            return null;
+        }
+        checkWriter();
+        if (batchDepth > 0) {
+            throw new IllegalStateException("Snapshot of " + currentFile + " inside a batch");
+        }
+        long journalSize = journal.rotate();
+        return new Snapshot(currentFile, published, journal, journalSize);
+    }
+
+    // May be called from any thread; the snapshot is immutable
+    public void saveWeekPlan(Snapshot snapshot) throws IOException {
+        File file = snapshot.file();
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(tmpFile)) {
+                codec.write(snapshot.root().getChildren(), out);
+            }
+            snapshot.journal().replaceXml(tmpFile.toPath());
+        } catch (IOException e) {
+            snapshot.journal().snapshotFailed();
+            throw e;
+        }
+        snapshot.journal().snapshotWritten();
+
+        WeekCache.Stamp stamp = new WeekCache.Stamp(Files.getLastModifiedTime(file.toPath()), Files.size(file.toPath()), snapshot.journalSize());
+        if (binaryCache) {
+            writeBinaryCache(file, snapshot.root(), stamp.xmlTime(), stamp.xmlSize());
+        }
+        if (searchIndex != null) {
+            searchIndex.update(file.getName(), snapshot.root().getChildren(), stamp);
+        }
+    }
+
+    // Whether the XML or the journal of the current week were changed by another program since it was
+    // loaded, saved or reloaded
+    public boolean isChangedExternally() throws IOException {
+        return journal != null && journal.isChangedExternally();
+    }
+
+    // Parses the XML of the current week in the background, for reload
+    public CompletableFuture<ExternalChange> readExternalChange() {
+        File file = currentFile;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                WeekCache.Stamp xml = Journal.xmlState(file);
+                return new ExternalChange(file, read(file), xml);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, background);
+    }
+
+    // Brings the current week to the state of the changed XML. The local edits not yet saved are
+    // replayed on top of it; those that no longer apply are dropped and returned as conflicts.
+    // Only the differing tasks are changed, the listener hears about added and removed ones,
+    // the task listener about changed ones. Null if another week was loaded in the meantime.
+    public Reload reload(ExternalChange change, TreeDiff.Listener listener) throws IOException {
+        if (!change.file().equals(currentFile)) {
+            return null;
+        }
+        checkWriter();
+        if (batchDepth > 0) {
+            throw new IllegalStateException("Reload of " + currentFile + " inside a batch");
+        }
+
+        Task target = change.tasks().getRoot();
+        List<Edit> merged = new ArrayList<>();
+        List<Edit> conflicts = new ArrayList<>();
+        for (Edit edit : journal.edits()) {
+            try {
+                edit.applyTo(target);
+                merged.add(edit);
+            } catch (RuntimeException e) {
+                conflicts.add(edit);
+            }
+        }
+
+        // Wie bei einem Batch hört der Listener jeden geänderten Task erst am Ende, einmal
+        tasks.setListener(batchChanges::add);
+        int changes;
+        try {
+            changes = TreeDiff.apply(tasks.getRoot(), target, listener);
+        } finally {
+            tasks.setListener(taskListener);
+        }
+        journal.reset(merged, change.xml());
+        publish();
+
+        List<Task> changed = new ArrayList<>(batchChanges);
+        batchChanges.clear();
+        if (taskListener != null) {
+            changed.forEach(taskListener::taskChanged);
+        }
+        return new Reload(changes, merged, conflicts);
+    }
+
+    public static void main(String[] args) throws IOException {
         SprintPlanningModel model = new SprintPlanningModel();
         model.loadWeekPlan("planning/2025-07-21.xml");
 
@@ -53,4 +439,28 @@ public class SprintPlanningModel {
         return tasks != null ? tasks.getTasks() : emptyList();
     }
 
+    // Journal edits that no longer applied when the current week was loaded, because another program
+    // changed its XML while it was closed. They are no longer part of the week.
+    public List<Edit> getConflicts() {
+        return conflicts;
+    }
+
+    // Parent of the top-level tasks of the current week
+    public Task getRoot() {
+        return tasks != null ? tasks.getRoot() : null;
+    }
+
+    public interface Transaction {
+        void run() throws IOException;
+    }
+
+    // journalSize is the size of the journal right after the rotation, when it had no edits yet
+    public record Snapshot(File file, TaskSnapshot root, Journal journal, long journalSize) {}
+
+    // The XML of a week as changed by another program; xml is its state before it was read
+    public record ExternalChange(File file, Tasks tasks, WeekCache.Stamp xml) {}
+
+    // Changes is the number of changed, added and removed tasks
+    public record Reload(int changes, List<Edit> merged, List<Edit> conflicts) {}
+
 }
@@ -0,0 +1,244 @@
+package com.example.sprintplanning.model;
+
+import javax.xml.stream.*;
+import java.io.*;
+import java.util.*;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+// Streaming codec without reflection; by default writes exactly what the JAXB marshaller writes
+public class StaxTaskCodec implements TaskCodec {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String INDENT = "    ";
+
+    private static final Flag[] FLAGS = Flag.values();
+
+    private final XMLInputFactory inputFactory;
+
+    // Leaves out flags that are false, readers treat missing attributes as false
+    private final boolean omitDefaults;
+
+    public StaxTaskCodec() {
+        this(false);
+    }
+
+    public StaxTaskCodec(boolean omitDefaults) {
+        this.omitDefaults = omitDefaults;
+        inputFactory = XMLInputFactory.newDefaultFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    @Override
+    public Tasks read(InputStream in) throws IOException {
+        try {
+            XMLStreamReader reader;
+            synchronized (inputFactory) {
+                reader = inputFactory.createXMLStreamReader(in);
+            }
+            try {
+                return read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static Tasks read(XMLStreamReader reader) throws XMLStreamException, IOException {
+        Tasks tasks = new Tasks();
+
+        // Offene Elemente; <tasks> wird durch den Root-Task vertreten
+        Deque<Task> stack = new ArrayDeque<>();
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case START_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    if (stack.isEmpty()) {
+                        if (!name.equals("tasks")) {
+                            throw new IOException("Unexpected root element <" + name + ">");
+                        }
+                        stack.push(tasks.getRoot());
+                    } else if (name.equals("task")) {
+                        Task task = readTask(reader);
+                        stack.peek().addChild(task);
+                        stack.push(task);
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+                case END_ELEMENT -> stack.pop();
+            }
+        }
+
+        return tasks;
+    }
+
+    private static Task readTask(XMLStreamReader reader) {
+        Task task = new Task(null);
+        for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (name.equals("text")) {
+                task.setText(reader.getAttributeValue(i));
+            } else {
+                Flag flag = Flag.forAttribute(name);
+                if (flag != null) {
+                    task.set(flag, parseBoolean(reader.getAttributeValue(i)));
+                }
+            }
+        }
+        return task;
+    }
+
+    // Same lexical space as xs:boolean
+    private static boolean parseBoolean(String value) {
+        String trimmed = value.trim();
+        return trimmed.equals("true") || trimmed.equals("1");
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case START_ELEMENT -> depth++;
+                case END_ELEMENT -> depth--;
+            }
+        }
+    }
+
+    @Override
+    public void write(List<? extends ReadOnlyTask> tasks, OutputStream out) throws IOException {
+        Utf8Writer writer = new Utf8Writer(out);
+
+        writer.write(HEADER);
+        if (tasks.isEmpty()) {
+            writer.write("<tasks/>\n");
+        } else {
+            writer.write("<tasks>\n");
+            for (ReadOnlyTask task : tasks) {
+                writeTask(writer, task, 1);
+            }
+            writer.write("</tasks>\n");
+        }
+
+        writer.flush();
+    }
+
+    private void writeTask(Utf8Writer writer, ReadOnlyTask task, int depth) throws IOException {
+        writeIndent(writer, depth);
+        writer.write("<task");
+
+        if (task.getText() != null) {
+            writer.write(" text=\"");
+            writer.writeEscaped(task.getText());
+            writer.write('"');
+        }
+
+        for (Flag flag : FLAGS) {
+            if (omitDefaults && !task.is(flag)) continue;
+            writer.write(' ');
+            writer.write(flag.attribute());
+            writer.write(task.is(flag) ? "=\"true\"" : "=\"false\"");
+        }
+
+        List<? extends ReadOnlyTask> children = task.getChildren();
+        if (children.isEmpty()) {
+            writer.write("/>\n");
+        } else {
+            writer.write(">\n");
+            for (ReadOnlyTask child : children) {
+                writeTask(writer, child, depth + 1);
+            }
+            writeIndent(writer, depth);
+            writer.write("</task>\n");
+        }
+    }
+
+    private static void writeIndent(Utf8Writer writer, int depth) throws IOException {
+        for (int i = 0; i < depth; i++) {
+            writer.write(INDENT);
+        }
+    }
+
+    // Encodes directly into a byte buffer, most of the output is ASCII
+    private static final class Utf8Writer {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+
+        Utf8Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(String s) throws IOException {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                write(s.charAt(i));
+            }
+        }
+
+        void write(char c) throws IOException {
+            if (position > buffer.length - 4) {
+                flushBuffer();
+            }
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+
+        void writeCodePoint(int codePoint) throws IOException {
+            if (position > buffer.length - 4) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+        }
+
+        // Escapes like the JAXB MinimumEscapeHandler for attribute values
+        void writeEscaped(String value) throws IOException {
+            for (int i = 0, n = value.length(); i < n; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> write("&amp;");
+                    case '<' -> write("&lt;");
+                    case '>' -> write("&gt;");
+                    case '"' -> write("&quot;");
+                    case '\n' -> write("&#10;");
+                    case '\r' -> write("&#13;");
+                    default -> {
+                        if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                            writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+                        } else {
+                            write(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+    }
+
+}
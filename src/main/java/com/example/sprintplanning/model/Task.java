@@ -1,73 +1,275 @@
 package com.example.sprintplanning.model;
 
-import jakarta.xml.bind.annotation.*;
+import jakarta.xml.bind.annotation.adapters.*;
 
 import java.util.*;
 
-@XmlAccessorType(XmlAccessType.FIELD)
-public class Task {
+import static java.util.Collections.*;
 
-    @XmlAttribute
-    private String text;
+// JAXB maps tasks through TaskAdapter, the fields are packed for memory
+@XmlJavaTypeAdapter(TaskAdapter.class)
+public class Task implements ReadOnlyTask {
 
-    @XmlAttribute
-    private boolean done;
+    // Shared by all leaves; replaced by a ChildList when the first child is added
+    private static final List<Task> NO_CHILDREN = emptyList();
 
-    @XmlAttribute
-    private boolean important;
+    private String text;
 
-    @XmlAttribute
-    private boolean urgent;
+    // One bit per Flag, see Flag.mask()
+    private byte flags;
 
-    @XmlAttribute
-    private boolean open;
+    private List<Task> children = NO_CHILDREN;
 
-    @XmlAttribute
-    private boolean optional;
+    // Maintained by ChildList; the root of a week and detached tasks have no parent
+    Task parent;
+    int index = -1;
 
-    @XmlAttribute
-    private boolean obsolete;
+    // Progress counters of the descendants, null until the first child is added
+    private int[] progress;
 
-    @XmlElement(name = "task")
-    private List<Task> children;
+    // Immutable version of this task, null after a change of the task or a descendant
+    private TaskSnapshot snapshot;
 
-    // Default constructor required by JAXB
     public Task() {
         this(null);
     }
 
     public Task(String text) {
-        this(text, new ArrayList<>());
-    }
-
-    public Task(String text, List<Task> children) {
         this.text = text;
-        this.children = children;
     }
 
+    @Override
     public String getText() { return text; }
-    public void setText(String text) { this.text = text; }
+    public void setText(String text) {
+        if (!Objects.equals(this.text, text)) {
+            this.text = text;
+            discardSnapshot();
+            fireChanged();
+        }
+    }
+
+    public boolean isDone() { return is(Flag.DONE); }
+    public void setDone(boolean done) { set(Flag.DONE, done); }
+
+    public boolean isImportant() { return is(Flag.IMPORTANT); }
+    public void setImportant(boolean important) { set(Flag.IMPORTANT, important); }
 
-    public boolean isDone() { return done; }
-    public void setDone(boolean done) { this.done = done; }
+    public boolean isUrgent() { return is(Flag.URGENT); }
+    public void setUrgent(boolean urgent) { set(Flag.URGENT, urgent); }
 
-    public boolean isImportant() { return important; }
-    public void setImportant(boolean important) { this.important = important; }
+    public boolean isOpen() { return is(Flag.OPEN); }
+    public void setOpen(boolean open) { set(Flag.OPEN, open); }
 
-    public boolean isUrgent() { return urgent; }
-    public void setUrgent(boolean urgent) { this.urgent = urgent; }
+    public boolean isOptional() { return is(Flag.OPTIONAL); }
+    public void setOptional(boolean optional) { set(Flag.OPTIONAL, optional); }
 
-    public boolean isOpen() { return open; }
-    public void setOpen(boolean open) { this.open = open; }
+    public boolean isObsolete() { return is(Flag.OBSOLETE); }
+    public void setObsolete(boolean obsolete) { set(Flag.OBSOLETE, obsolete); }
 
-    public boolean isOptional() { return optional; }
-    public void setOptional(boolean optional) { this.optional = optional; }
+    @Override
+    public boolean is(Flag flag) {
+        return (flags & flag.mask()) != 0;
+    }
+
+    public void set(Flag flag, boolean value) {
+        setFlags(value ? flags | flag.mask() : flags & ~flag.mask());
+    }
 
-    public boolean isObsolete() { return obsolete; }
-    public void setObsolete(boolean obsolete) { this.obsolete = obsolete; }
+    @Override
+    public int getFlags() { return flags; }
+
+    public void setFlags(int flags) {
+        if (this.flags != (byte) flags) {
+            int[] delta = new int[Progress.COUNTERS];
+            Progress.addTask(delta, this.flags, -1);
+            this.flags = (byte) flags;
+            Progress.addTask(delta, this.flags, 1);
+            discardSnapshot();
+
+            if (parent != null) {
+                parent.progressChanged(delta);
+            }
+            fireChanged();
+        }
+    }
 
+    // Counts over all descendants, not including the task itself; kept up to date on every change
+    @Override
+    public Progress getProgress() {
+        return Progress.of(progress);
+    }
+
+    // Adds sign times the counters of this task and its descendants
+    void addTotalsTo(int[] counters, int sign) {
+        Progress.addTask(counters, flags, sign);
+        if (progress != null) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] += sign * progress[i];
+            }
+        }
+    }
+
+    // Applies a change of the descendants to this task and its ancestors, O(depth).
+    // Their progress changed, so the week hears about each of them.
+    void progressChanged(int[] delta) {
+        boolean changed = false;
+        for (int value : delta) {
+            changed |= value != 0;
+        }
+        if (!changed) return;
+
+        Task root = this;
+        for (Task task = this; task != null; task = task.parent) {
+            if (task.progress == null) {
+                task.progress = new int[Progress.COUNTERS];
+            }
+            for (int i = 0; i < delta.length; i++) {
+                task.progress[i] += delta[i];
+            }
+            root = task;
+        }
+        for (Task task = this; task != null; task = task.parent) {
+            root.descendantChanged(task);
+        }
+    }
+
+    // Der Listener hängt am Root der Woche, so kostet er pro Task keinen Speicher
+    private void fireChanged() {
+        Task root = this;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        if (root != this) {
+            root.descendantChanged(this);
+        }
+    }
+
+    // Overridden by the root of a week
+    void descendantChanged(Task task) {
+    }
+
+    // The current state of the task and its subtree. Only the tasks changed since the last call
+    // and their ancestors are copied, everything else is shared with the previous snapshot.
+    // Must be called on the thread that changes the tasks.
+    public TaskSnapshot snapshot() {
+        if (snapshot == null) {
+            TaskSnapshot[] childSnapshots = new TaskSnapshot[children.size()];
+            for (int i = 0; i < childSnapshots.length; i++) {
+                childSnapshots[i] = children.get(i).snapshot();
+            }
+            snapshot = new TaskSnapshot(text, flags, childSnapshots, getProgress());
+        }
+        return snapshot;
+    }
+
+    // Die Vorfahren eines Tasks ohne Snapshot haben auch keinen, daher endet die Schleife früh
+    void discardSnapshot() {
+        for (Task task = this; task != null && task.snapshot != null; task = task.parent) {
+            task.snapshot = null;
+        }
+    }
+
+    // Read-only for leaves, use addChild/addChildren to add children.
+    // A task can only be the child of one parent, remove it before adding it elsewhere.
+    @Override
     public List<Task> getChildren() { return children; }
-    public void setChildren(List<Task> children) { this.children = children; }
+
+    public void setChildren(List<Task> children) {
+        if (!this.children.isEmpty()) {
+            this.children.clear();
+        }
+        addChildren(children);
+    }
+
+    public Task getParent() { return parent; }
+
+    // Position among the siblings, -1 without parent
+    public int getIndex() {
+        return parent != null ? ((ChildList) parent.children).position(this) : -1;
+    }
+
+    // Indexes from the root of the week down to this task, as used by Edit
+    public int[] getPath() {
+        int depth = 0;
+        for (Task current = this; current.parent != null; current = current.parent) {
+            depth++;
+        }
+
+        int[] path = new int[depth];
+        for (Task current = this; current.parent != null; current = current.parent) {
+            path[--depth] = current.getIndex();
+        }
+        return path;
+    }
+
+    public void addChild(Task child) {
+        mutableChildren().add(child);
+    }
+
+    public void addChild(int index, Task child) {
+        mutableChildren().add(index, child);
+    }
+
+    public void addChildren(Collection<Task> tasks) {
+        if (!tasks.isEmpty()) {
+            mutableChildren().addAll(tasks);
+        }
+    }
+
+    // Detaches the task from its parent
+    public void remove() {
+        if (parent != null) {
+            parent.children.remove(getIndex());
+        }
+    }
+
+    // Moves the task to another position among its siblings
+    public void moveTo(int newIndex) {
+        ((ChildList) parent.children).move(getIndex(), newIndex);
+    }
+
+    // Moves the task to the given position below another parent
+    public void moveTo(Task newParent, int newIndex) {
+        for (Task ancestor = newParent; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == this) {
+                throw new IllegalArgumentException("Task cannot be moved below itself: " + this);
+            }
+        }
+        remove();
+        newParent.addChild(newIndex, this);
+    }
+
+    // Moves the children from the given position on to the end of the target's children
+    public void moveChildrenTo(int from, Task target) {
+        if (from >= children.size()) return;
+        Task[] moved = ((ChildList) children).cut(from, children.size());
+        target.mutableChildren().addAll(Arrays.asList(moved));
+    }
+
+    List<Task> mutableChildren() {
+        if (children == NO_CHILDREN) {
+            children = new ChildList(this);
+        }
+        return children;
+    }
+
+    public Task copy() {
+        return copyOf(this);
+    }
+
+    // Mutable deep copy, e.g. of a snapshot
+    public static Task copyOf(ReadOnlyTask task) {
+        Task copy = new Task(task.getText());
+        copy.flags = (byte) task.getFlags();
+        if (!task.getChildren().isEmpty()) {
+            List<Task> childCopies = new ArrayList<>(task.getChildren().size());
+            for (ReadOnlyTask child : task.getChildren()) {
+                childCopies.add(copyOf(child));
+            }
+            copy.addChildren(childCopies);
+        }
+        return copy;
+    }
 
     @Override
     public String toString() {
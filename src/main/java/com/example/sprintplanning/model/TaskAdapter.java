@@ -0,0 +1,67 @@
+package com.example.sprintplanning.model;
+
+import jakarta.xml.bind.annotation.*;
+import jakarta.xml.bind.annotation.adapters.*;
+
+import java.util.*;
+
+// Maps the packed Task to the attribute layout JAXB has always written
+class TaskAdapter extends XmlAdapter<TaskAdapter.XmlTask, Task> {
+
+    @Override
+    public Task unmarshal(XmlTask xml) {
+        Task task = new Task(xml.text);
+        task.setDone(xml.done);
+        task.setImportant(xml.important);
+        task.setUrgent(xml.urgent);
+        task.setOpen(xml.open);
+        task.setOptional(xml.optional);
+        task.setObsolete(xml.obsolete);
+        task.addChildren(xml.children);
+        return task;
+    }
+
+    @Override
+    public XmlTask marshal(Task task) {
+        XmlTask xml = new XmlTask();
+        xml.text = task.getText();
+        xml.done = task.isDone();
+        xml.important = task.isImportant();
+        xml.urgent = task.isUrgent();
+        xml.open = task.isOpen();
+        xml.optional = task.isOptional();
+        xml.obsolete = task.isObsolete();
+        xml.children = task.getChildren();
+        return xml;
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    static class XmlTask {
+
+        @XmlAttribute
+        String text;
+
+        @XmlAttribute
+        boolean done;
+
+        @XmlAttribute
+        boolean important;
+
+        @XmlAttribute
+        boolean urgent;
+
+        @XmlAttribute
+        boolean open;
+
+        @XmlAttribute
+        boolean optional;
+
+        @XmlAttribute
+        boolean obsolete;
+
+        @XmlElement(name = "task")
+        List<Task> children = new ArrayList<>();
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.util.*;
+
+// Reads and writes the tasks/task XML format of a week plan
+public interface TaskCodec {
+
+    Tasks read(InputStream in) throws IOException;
+
+    // The top-level tasks of a week, e.g. of a snapshot
+    void write(List<? extends ReadOnlyTask> tasks, OutputStream out) throws IOException;
+
+    default void write(Tasks tasks, OutputStream out) throws IOException {
+        write(tasks.getTasks(), out);
+    }
+
+    // Creates expensive state ahead of the first read or write; may be called from any thread
+    default void prepare() throws IOException {
+    }
+
+    // -Dsprintplanning.codec=jaxb switches back to the reflective JAXB implementation,
+    // -Dsprintplanning.codec=compact writes only the flags that are set
+    static TaskCodec getDefault() {
+        String codec = System.getProperty("sprintplanning.codec", "");
+        if (codec.equalsIgnoreCase("jaxb")) {
+            return new JaxbTaskCodec();
+        }
+        return new StaxTaskCodec(codec.equalsIgnoreCase("compact"));
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.example.sprintplanning.model;
+
+// Notified when the text or a flag of a task in a week changes; structural changes are not reported
+public interface TaskListener {
+
+    void taskChanged(Task task);
+
+}
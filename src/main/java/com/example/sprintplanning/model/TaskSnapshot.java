@@ -0,0 +1,48 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// Immutable version of a task and its subtree, see Task.snapshot() and SprintPlanningModel.getSnapshot().
+// Subtrees that did not change are shared between versions, so a new version only copies the
+// changed tasks and their ancestors.
+public final class TaskSnapshot implements ReadOnlyTask {
+
+    private final String text;
+    private final int flags;
+    private final List<TaskSnapshot> children;
+    private final Progress progress;
+
+    // The progress is taken over from the task, which keeps it up to date anyway
+    TaskSnapshot(String text, int flags, TaskSnapshot[] children, Progress progress) {
+        this.text = text;
+        this.flags = flags;
+        this.children = children.length == 0 ? List.of() : Collections.unmodifiableList(Arrays.asList(children));
+        this.progress = progress;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public int getFlags() {
+        return flags;
+    }
+
+    @Override
+    public List<TaskSnapshot> getChildren() {
+        return children;
+    }
+
+    @Override
+    public Progress getProgress() {
+        return progress;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
@@ -8,15 +8,51 @@ import java.util.*;
 @XmlAccessorType(XmlAccessType.FIELD)
 public class Tasks {
 
+    // Parent of the top-level tasks, not part of the XML
+    @XmlTransient
+    private final Root root = new Root();
+
     @XmlElement(name = "task")
-    private List<Task> tasks = new ArrayList<>();
+    private List<Task> tasks = root.mutableChildren();
+
+    public Task getRoot() {
+        return root;
+    }
 
     public List<Task> getTasks() {
         return tasks;
     }
 
     public void setTasks(List<Task> tasks) {
-        this.tasks = tasks;
+        root.setChildren(tasks);
+    }
+
+    // Receives the changes of all tasks of this week, null for none
+    public void setListener(TaskListener listener) {
+        root.listener = listener;
+    }
+
+    public Tasks copy() {
+        List<Task> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            copies.add(task.copy());
+        }
+        Tasks copy = new Tasks();
+        copy.root.addChildren(copies);
+        return copy;
+    }
+
+    private static class Root extends Task {
+
+        private TaskListener listener;
+
+        @Override
+        void descendantChanged(Task task) {
+            if (listener != null) {
+                listener.taskChanged(task);
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,129 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+// Brings a task tree to the state of another one with few changes, so that the unchanged tasks keep
+// their identity and with it their TreeItems, selection and expansion. Children are matched by text
+// in order; the rest are renamed in place, added or removed, a moved task is removed and added again.
+// Existing tasks keep their OPEN flag.
+public final class TreeDiff {
+
+    // Receives the structural changes in the order they are made, text and flags go to the TaskListener
+    public interface Listener {
+
+        // The child at the index of the parent was added, possibly with children of its own
+        void added(Task parent, int index);
+
+        // The child at the index of the parent was removed
+        void removed(Task parent, int index);
+
+    }
+
+    private static final int OPEN = Flag.OPEN.mask();
+
+    private final Listener listener;
+
+    // Changed, added and removed tasks
+    private int changes;
+
+    private TreeDiff(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Applies the differences below current and returns the number of changed, added and removed tasks
+    public static int apply(Task current, ReadOnlyTask target, Listener listener) {
+        TreeDiff diff = new TreeDiff(listener);
+        diff.applyChildren(current, target);
+        return diff.changes;
+    }
+
+    private void applyTask(Task current, ReadOnlyTask target) {
+        int flags = target.getFlags() & ~OPEN | current.getFlags() & OPEN;
+        if (!Objects.equals(current.getText(), target.getText()) || current.getFlags() != flags) {
+            current.setText(target.getText());
+            current.setFlags(flags);
+            changes++;
+        }
+        applyChildren(current, target);
+    }
+
+    private void applyChildren(Task current, ReadOnlyTask target) {
+        List<? extends ReadOnlyTask> targets = target.getChildren();
+
+        // Meist stimmen die Kinder überein, dann werden keine Zähler gebraucht
+        int start = 0;
+        while (start < targets.size() && start < current.getChildren().size()
+                && Objects.equals(current.getChildren().get(start).getText(), targets.get(start).getText())) {
+            applyTask(current.getChildren().get(start), targets.get(start));
+            start++;
+        }
+        if (start == targets.size() && start == current.getChildren().size()) return;
+
+        // Wie oft ein Text unter den noch nicht zugeordneten Kindern vorkommt
+        Map<String, Integer> remaining = new HashMap<>();
+        Map<String, Integer> remainingTargets = new HashMap<>();
+        for (int i = start; i < current.getChildren().size(); i++) {
+            remaining.merge(current.getChildren().get(i).getText(), 1, Integer::sum);
+        }
+        for (int i = start; i < targets.size(); i++) {
+            remainingTargets.merge(targets.get(i).getText(), 1, Integer::sum);
+        }
+
+        // Die Kinder vor index entsprechen bereits denen des Ziels
+        for (int index = start; index < targets.size(); index++) {
+            ReadOnlyTask wanted = targets.get(index);
+            decrement(remainingTargets, wanted.getText());
+
+            while (true) {
+                if (index == current.getChildren().size()) {
+                    add(current, index, wanted);
+                    break;
+                }
+
+                Task child = current.getChildren().get(index);
+                if (Objects.equals(child.getText(), wanted.getText())) {
+                    decrement(remaining, child.getText());
+                    applyTask(child, wanted);
+                    break;
+                }
+
+                // Überzählig ist ein Text, der unter den Kindern öfter vorkommt als im restlichen Ziel
+                boolean surplus = remaining.get(child.getText()) > remainingTargets.getOrDefault(child.getText(), 0);
+                boolean wantedLater = remaining.containsKey(wanted.getText());
+                if (surplus && wantedLater) {
+                    decrement(remaining, child.getText());
+                    remove(current, index);
+                } else if (!surplus && !wantedLater) {
+                    add(current, index, wanted);
+                    break;
+                } else {
+                    // Umbenennen statt Entfernen und Hinzufügen, so bleibt der TreeItem erhalten
+                    decrement(remaining, child.getText());
+                    applyTask(child, wanted);
+                    break;
+                }
+            }
+        }
+
+        for (int index = current.getChildren().size() - 1; index >= targets.size(); index--) {
+            remove(current, index);
+        }
+    }
+
+    private void add(Task parent, int index, ReadOnlyTask task) {
+        parent.addChild(index, Task.copyOf(task));
+        listener.added(parent, index);
+        changes++;
+    }
+
+    private void remove(Task parent, int index) {
+        parent.getChildren().get(index).remove();
+        listener.removed(parent, index);
+        changes++;
+    }
+
+    private static void decrement(Map<String, Integer> counts, String text) {
+        counts.computeIfPresent(text, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import static java.nio.file.StandardCopyOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+// Closed weeks of a year packed into one file next to the week XMLs, e.g. planning/2024.pack for
+// planning/2024-01-01.xml and the other weeks of 2024. Each week is compressed on its own, so
+// reading one only seeks to it and inflates it; the index at the end is read once per archive.
+// A week XML in the folder takes precedence over its archived copy, so editing an archived week
+// writes it back as a plain XML file.
+//
+// int magic, int version
+// per week:  deflated XML
+// index:     int week count; per week: UTF name, long offset, int compressed size, int size, long xml time (ns)
+// trailer:   long index offset, int magic
+public final class WeekArchive {
+
+    private static final int MAGIC = 0x53504131; // "SPA1"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 12;
+
+    // Opened archives by path; an index is read again when its archive changed
+    private static final Map<Path, WeekArchive> opened = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final FileTime time;
+    private final long size;
+    private final SortedMap<String, Entry> entries;
+
+    private WeekArchive(Path file, FileTime time, long size, SortedMap<String, Entry> entries) {
+        this.file = file;
+        this.time = time;
+        this.size = size;
+        this.entries = entries;
+    }
+
+    // The archive a week is packed into if it is archived, named after the year of the week
+    public static Path fileFor(File weekFile) {
+        String name = weekFile.getName();
+        String year = name.length() > 4 && name.charAt(4) == '-' ? name.substring(0, 4) : name;
+        File folder = weekFile.getAbsoluteFile().getParentFile();
+        return folder.toPath().resolve(year + ".pack");
+    }
+
+    // Whether the week exists as an XML file or in its archive
+    public static boolean exists(File weekFile) {
+        return weekFile.isFile() || forWeek(weekFile) != null;
+    }
+
+    // The archive containing the week, null if it is not archived or cannot be read
+    public static WeekArchive forWeek(File weekFile) {
+        try {
+            WeekArchive archive = open(fileFor(weekFile));
+            return archive != null && archive.contains(weekFile.getName()) ? archive : null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Null if the archive does not exist
+    public static WeekArchive open(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            opened.remove(key);
+            return null;
+        }
+
+        WeekArchive archive = opened.get(key);
+        if (archive == null || !archive.time.equals(attributes.lastModifiedTime()) || archive.size != attributes.size()) {
+            archive = new WeekArchive(key, attributes.lastModifiedTime(), attributes.size(), readIndex(key));
+            opened.put(key, archive);
+        }
+        return archive;
+    }
+
+    // Names of all archived weeks in the folder, in date order
+    public static SortedSet<String> weeks(Path folder) throws IOException {
+        SortedSet<String> weeks = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.pack")) {
+            for (Path path : stream) {
+                WeekArchive archive = open(path);
+                if (archive != null) {
+                    weeks.addAll(archive.getWeeks());
+                }
+            }
+        }
+        return weeks;
+    }
+
+    private static SortedMap<String, Entry> readIndex(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Not a week archive: " + file);
+            }
+
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long indexOffset = trailer.getLong();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || trailer.getInt() != MAGIC
+                    || indexOffset < HEADER_BYTES || indexOffset > size - TRAILER_BYTES) {
+                throw new IOException("Not a week archive: " + file);
+            }
+
+            ByteBuffer index = read(channel, indexOffset, (int) (size - TRAILER_BYTES - indexOffset));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(index.array()));
+            SortedMap<String, Entry> entries = new TreeMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                entries.put(in.readUTF(), new Entry(in.readLong(), in.readInt(), in.readInt(), in.readLong()));
+            }
+            return entries;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public SortedSet<String> getWeeks() {
+        return new TreeSet<>(entries.keySet());
+    }
+
+    public boolean contains(String week) {
+        return entries.containsKey(week);
+    }
+
+    // Modification time and size of the XML the week was packed from, they serve as its stamp
+    public FileTime getTime(String week) {
+        return FileTime.from(entry(week).xmlTime(), NANOSECONDS);
+    }
+
+    public long getSize(String week) {
+        return entry(week).size();
+    }
+
+    // The XML of the week; only its part of the archive is read
+    public InputStream read(String week) throws IOException {
+        Entry entry = entry(week);
+        byte[] xml = new byte[entry.size()];
+        Inflater inflater = new Inflater();
+        try (FileChannel channel = FileChannel.open(file)) {
+            inflater.setInput(read(channel, entry.offset(), entry.compressed()));
+            int length = 0;
+            while (length < xml.length && !inflater.finished()) {
+                int inflated = inflater.inflate(xml, length, xml.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += inflated;
+            }
+            if (length != xml.length) {
+                throw new IOException("Damaged entry " + week + " in " + file);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged entry " + week + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+        return new ByteArrayInputStream(xml);
+    }
+
+    private Entry entry(String week) {
+        Entry entry = entries.get(week);
+        if (entry == null) {
+            throw new IllegalArgumentException(week + " is not in " + file);
+        }
+        return entry;
+    }
+
+    // Moves the week XMLs into the archives of their years, next to the weeks already archived there.
+    // Weeks with unsaved edits in their journal or open in a program stay as they are. The XMLs,
+    // their binary caches and empty journals are deleted once the archive is written. Returns the
+    // packed weeks, without those whose XML could not be deleted, e.g. because another program has it open.
+    public static List<File> pack(Collection<File> weekFiles) throws IOException {
+        // Geöffnete Wochen bleiben ungepackt, die Sperren verhindern das Öffnen während des Packens
+        List<Journal.Lock> locks = new ArrayList<>();
+        try {
+            Map<Path, List<File>> byArchive = new TreeMap<>();
+            for (File weekFile : weekFiles) {
+                if (Journal.hasEdits(weekFile) || Files.exists(Journal.oldFileFor(weekFile))) continue;
+                Journal.Lock lock = Journal.tryLock(weekFile);
+                if (lock == null) continue;
+                locks.add(lock);
+                byArchive.computeIfAbsent(fileFor(weekFile), k -> new ArrayList<>()).add(weekFile);
+            }
+
+            List<File> packed = new ArrayList<>();
+            for (Map.Entry<Path, List<File>> archive : byArchive.entrySet()) {
+                write(archive.getKey(), archive.getValue());
+                for (File weekFile : archive.getValue()) {
+                    try {
+                        // Übrig gebliebene Caches und leere Journale stören nicht, ein Cache ohne sein XML wird nicht gelesen
+                        Files.deleteIfExists(BinaryTaskFile.fileFor(weekFile));
+                        Files.deleteIfExists(Journal.fileFor(weekFile));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    try {
+                        Files.delete(weekFile.toPath());
+                        packed.add(weekFile);
+                    } catch (IOException e) {
+                        // Das XML hat Vorrang vor der gleichen archivierten Fassung, die Woche bleibt ungepackt
+                        e.printStackTrace();
+                    }
+                }
+            }
+            return packed;
+        } finally {
+            for (Journal.Lock lock : locks) {
+                try {
+                    lock.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void write(Path file, List<File> weekFiles) throws IOException {
+        WeekArchive previous = open(file);
+        Map<String, File> added = new TreeMap<>();
+        for (File weekFile : weekFiles) {
+            added.put(weekFile.getName(), weekFile);
+        }
+        SortedSet<String> weeks = new TreeSet<>(added.keySet());
+        if (previous != null) {
+            weeks.addAll(previous.getWeeks());
+        }
+
+        Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (FileChannel source = previous != null ? FileChannel.open(previous.file) : null;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            long offset = HEADER_BYTES;
+            for (String week : weeks) {
+                File weekFile = added.get(week);
+                byte[] compressed;
+                Entry entry;
+                if (weekFile != null) {
+                    // Zeit vor dem Lesen, wie beim Binär-Cache
+                    FileTime time = Files.getLastModifiedTime(weekFile.toPath());
+                    byte[] xml = Files.readAllBytes(weekFile.toPath());
+                    compressed = deflate(deflater, xml);
+                    entry = new Entry(offset, compressed.length, xml.length, time.to(NANOSECONDS));
+                } else {
+                    // Bereits archivierte Wochen werden unverändert übernommen
+                    Entry old = previous.entry(week);
+                    compressed = read(source, old.offset(), old.compressed()).array();
+                    entry = new Entry(offset, old.compressed(), old.size(), old.xmlTime());
+                }
+                out.write(compressed);
+                entries.put(week, entry);
+                offset += compressed.length;
+            }
+
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> week : entries.entrySet()) {
+                Entry entry = week.getValue();
+                out.writeUTF(week.getKey());
+                out.writeLong(entry.offset());
+                out.writeInt(entry.compressed());
+                out.writeInt(entry.size());
+                out.writeLong(entry.xmlTime());
+            }
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        Files.move(tmpFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 8 + 64);
+        byte[] buffer = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return file + " (" + entries.size() + " weeks)";
+    }
+
+    private record Entry(long offset, int compressed, int size, long xmlTime) {}
+
+}
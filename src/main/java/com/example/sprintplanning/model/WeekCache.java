@@ -0,0 +1,132 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+// LRU cache of parsed weeks, bounded by entry count and approximate heap size
+public class WeekCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 16;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // Access order: the first entry is the least recently used one
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public WeekCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public WeekCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    // Removes and returns the cached tasks if neither the XML nor its journal changed since they were cached
+    public synchronized Tasks take(File file) {
+        Path key = key(file);
+        Entry entry = entries.get(key);
+        remove(key);
+
+        if (entry != null && entry.stamp.equals(Stamp.of(file))) {
+            return entry.tasks;
+        }
+        return null;
+    }
+
+    // The tasks must reflect the current content of the XML file and its journal
+    public void put(File file, Tasks tasks) {
+        put(file, tasks, Stamp.of(file));
+    }
+
+    // The stamp has to be taken before the file is read
+    public synchronized void put(File file, Tasks tasks, Stamp stamp) {
+        Path key = key(file);
+        remove(key);
+
+        if (stamp == null) return;
+
+        Entry entry = new Entry(tasks, stamp, estimateSize(tasks.getTasks()));
+        if (entry.bytes > maxBytes) return;
+
+        entries.put(key, entry);
+        bytes += entry.bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    public synchronized boolean contains(File file) {
+        Entry entry = entries.get(key(file));
+        return entry != null && entry.stamp.equals(Stamp.of(file));
+    }
+
+    public synchronized void invalidate(File file) {
+        remove(key(file));
+    }
+
+    private void remove(Path key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes;
+        }
+    }
+
+    private static Path key(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    // Rough heap usage: object headers, references and text
+    private static long estimateSize(List<Task> tasks) {
+        long size = 16 + 4L * tasks.size();
+        for (Task task : tasks) {
+            size += 24;
+            if (task.getText() != null) {
+                size += 24 + 16 + task.getText().length();
+            }
+            if (!task.getChildren().isEmpty()) {
+                size += 24 + estimateSize(task.getChildren());
+            }
+        }
+        return size;
+    }
+
+    private record Entry(Tasks tasks, Stamp stamp, long bytes) {}
+
+    // Modification state of a week file and its journal
+    public record Stamp(FileTime xmlTime, long xmlSize, long journalSize) {
+
+        // Null if the state cannot be determined
+        public static Stamp of(File file) {
+            try {
+                Path xml = file.toPath();
+                Path journal = Journal.fileFor(file);
+                if (Files.exists(Journal.oldFileFor(file))) {
+                    // Eine Kompaktierung ist nicht abgeschlossen
+                    return null;
+                }
+                long journalSize = Files.exists(journal) ? Files.size(journal) : 0;
+                if (!Files.exists(xml)) {
+                    // Eine archivierte Woche ändert sich nur mit ihrem Journal
+                    WeekArchive archive = WeekArchive.forWeek(file);
+                    return archive != null
+                            ? new Stamp(archive.getTime(file.getName()), archive.getSize(file.getName()), journalSize)
+                            : null;
+                }
+                return new Stamp(Files.getLastModifiedTime(xml), Files.size(xml), journalSize);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
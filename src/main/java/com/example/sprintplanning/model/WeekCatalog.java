@@ -0,0 +1,207 @@
+package com.example.sprintplanning.model;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+// Names of the week files in the planning folder, kept up to date through a WatchService.
+// Changes of existing weeks are reported as well, including the ones written by this application;
+// edits appended to the journal of a week count as a change of the week.
+// Weeks packed into a WeekArchive are listed like the others.
+public class WeekCatalog implements Closeable {
+
+    // Events arriving within this window are delivered as one change
+    private static final long BATCH_MILLIS = 100;
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final Path folder;
+    private final Executor ownerExecutor;
+    private final Consumer<Change> listener;
+
+    // Guarded by this
+    private final SortedSet<String> weeks = new TreeSet<>();
+
+    private WatchService watchService;
+
+    // Set once the initial content was delivered
+    private boolean scanned;
+
+    public WeekCatalog(Path folder, Executor ownerExecutor, Consumer<Change> listener) {
+        this.folder = folder;
+        this.ownerExecutor = ownerExecutor;
+        this.listener = listener;
+    }
+
+    // Scans the folder and watches it on a background thread; the listener receives the initial content as well,
+    // even if the folder is empty
+    public void start() throws IOException {
+        watchService = folder.getFileSystem().newWatchService();
+        folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY, OVERFLOW);
+
+        Thread thread = new Thread(this::run, "week-catalog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized SortedSet<String> getWeeks() {
+        return new TreeSet<>(weeks);
+    }
+
+    private void run() {
+        try {
+            // Registrierung vor dem Scan, damit keine Änderung verloren geht
+            rescan();
+
+            while (true) {
+                WatchKey key = watchService.take();
+                SortedSet<String> added = new TreeSet<>();
+                SortedSet<String> removed = new TreeSet<>();
+                SortedSet<String> modified = new TreeSet<>();
+                boolean overflow = false;
+                boolean archivesChanged = false;
+
+                // Weitere Ereignisse kurz sammeln, um sie gemeinsam auszuliefern
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            overflow = true;
+                            continue;
+                        }
+
+                        String name = event.context().toString();
+                        if (name.endsWith(".pack")) {
+                            archivesChanged = true;
+                            continue;
+                        }
+                        if (name.endsWith(JOURNAL_SUFFIX)) {
+                            if (event.kind() != ENTRY_DELETE) {
+                                modified.add(name.substring(0, name.length() - JOURNAL_SUFFIX.length()));
+                            }
+                            continue;
+                        }
+                        if (!isWeekFile(name)) continue;
+
+                        if (event.kind() == ENTRY_MODIFY) {
+                            modified.add(name);
+                        } else if (event.kind() == ENTRY_CREATE) {
+                            added.add(name);
+                            removed.remove(name);
+                        } else {
+                            removed.add(name);
+                            added.remove(name);
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                    key = watchService.poll(BATCH_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                if (overflow || archivesChanged) {
+                    rescan();
+                } else {
+                    apply(added, removed, modified);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Katalog wurde geschlossen
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Names of the weeks in the folder, in date order; archived weeks are included
+    public static SortedSet<String> scan(Path folder) throws IOException {
+        SortedSet<String> found = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.xml")) {
+            for (Path path : stream) {
+                found.add(path.getFileName().toString());
+            }
+        }
+        found.addAll(WeekArchive.weeks(folder));
+        return found;
+    }
+
+    // Week files whose date lies between from and to, both inclusive, in date order.
+    // The files of archived weeks do not exist, SprintPlanningModel.readWeek reads them from their archive.
+    public static List<Path> weeks(Path folder, String from, String to) throws IOException {
+        List<Path> weeks = new ArrayList<>();
+        for (String name : scan(folder)) {
+            // ISO-Daten lassen sich als Text vergleichen
+            String date = name.substring(0, name.length() - ".xml".length());
+            if (date.compareTo(from) >= 0 && date.compareTo(to) <= 0) {
+                weeks.add(folder.resolve(name));
+            }
+        }
+        return weeks;
+    }
+
+    private void rescan() throws IOException {
+        SortedSet<String> found = scan(folder);
+
+        SortedSet<String> removed;
+        synchronized (this) {
+            removed = new TreeSet<>(weeks);
+        }
+        removed.removeAll(found);
+        // Nach einem Überlauf könnte sich jede Woche geändert haben
+        apply(found, removed, new TreeSet<>(found));
+    }
+
+    private void apply(SortedSet<String> added, SortedSet<String> removed, SortedSet<String> modified) {
+        // Eine gepackte Woche ist nur aus dem Ordner verschwunden, ihr Inhalt kommt nun aus dem Archiv
+        for (Iterator<String> iterator = removed.iterator(); iterator.hasNext(); ) {
+            String name = iterator.next();
+            if (WeekArchive.forWeek(folder.resolve(name).toFile()) != null) {
+                iterator.remove();
+                modified.add(name);
+            }
+        }
+
+        boolean initial;
+        synchronized (this) {
+            // Neu geschriebene Dateien (z.B. nach dem Speichern) ersetzen eine bestehende Woche
+            for (String name : added) {
+                if (weeks.contains(name)) {
+                    modified.add(name);
+                }
+            }
+            modified.retainAll(weeks);
+            modified.removeAll(removed);
+            added.removeAll(weeks);
+            removed.retainAll(weeks);
+            weeks.addAll(added);
+            weeks.removeAll(removed);
+            if (!scanned) {
+                modified.clear();
+            }
+            initial = !scanned;
+            scanned = true;
+        }
+
+        if (initial || !added.isEmpty() || !removed.isEmpty() || !modified.isEmpty()) {
+            Change change = new Change(added, removed, modified);
+            ownerExecutor.execute(() -> listener.accept(change));
+        }
+    }
+
+    private static boolean isWeekFile(String name) {
+        return name.endsWith(".xml");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    // Modified are weeks that existed before and whose file was written since
+    public record Change(SortedSet<String> added, SortedSet<String> removed, SortedSet<String> modified) {}
+
+}
@@ -4,6 +4,7 @@ module sprint.planning {
     requires javafx.base;
     requires javafx.controls;
     requires javafx.graphics;
+    requires java.xml;
 
     requires org.glassfish.jaxb.runtime;
 
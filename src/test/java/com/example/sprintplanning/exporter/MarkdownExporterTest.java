@@ -0,0 +1,90 @@
+package com.example.sprintplanning.exporter;
+
+import com.example.sprintplanning.importer.*;
+import com.example.sprintplanning.model.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Der Export muss sich mit dem MarkdownImporter wieder einlesen lassen
+class MarkdownExporterTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void markdownRoundTripKeepsTextAndFlags() throws IOException {
+        Tasks week = new Tasks();
+        Task empty = new Task("");
+        week.getRoot().addChild(empty);
+        empty.addChild(new Task("unter einem leeren Task"));
+        Task emptyChild = new Task("");
+        emptyChild.setDone(true);
+        empty.addChild(emptyChild);
+
+        Task done = new Task("Erledigt");
+        done.setDone(true);
+        week.getRoot().addChild(done);
+        Task important = new Task("Wichtig");
+        important.setImportant(true);
+        done.addChild(important);
+        important.addChild(new Task("[x] sieht aus wie ein Kästchen"));
+
+        Task both = new Task("Wichtig und erledigt");
+        both.setDone(true);
+        both.setImportant(true);
+        week.getRoot().addChild(both);
+
+        Tasks imported = roundTrip(week);
+        assertEquals(describe(week.getRoot()), describe(imported.getRoot()));
+    }
+
+    @Test
+    void lineBreaksAndMissingTextAreNormalized() throws IOException {
+        Tasks week = new Tasks();
+        week.getRoot().addChild(new Task("erste\nzweite\r\ndritte"));
+        week.getRoot().addChild(new Task(null));
+
+        List<Task> imported = roundTrip(week).getTasks();
+        assertEquals(2, imported.size());
+        assertEquals("erste zweite  dritte", imported.get(0).getText());
+        assertEquals("", imported.get(1).getText());
+    }
+
+    private Tasks roundTrip(Tasks week) throws IOException {
+        Path markdown = folder.resolve("2024-01-01.md");
+        try (Writer out = Files.newBufferedWriter(markdown, StandardCharsets.UTF_8)) {
+            MarkdownExporter exporter = new MarkdownExporter(out, MarkdownExporter.Format.MARKDOWN);
+            exporter.writeWeekHeading("2024-01-01");
+            exporter.writeWeek(week);
+        }
+
+        Path xml = folder.resolve("2024-01-01.xml");
+        new MarkdownImporter(TaskCodec.getDefault()).importFile(markdown, xml);
+        try (InputStream in = Files.newInputStream(xml)) {
+            return TaskCodec.getDefault().read(in);
+        }
+    }
+
+    // Eine Zeile je Task mit Tiefe, Flags und Text
+    private static String describe(Task root) {
+        StringBuilder text = new StringBuilder();
+        describe(root, 0, text);
+        return text.toString();
+    }
+
+    private static void describe(Task task, int depth, StringBuilder text) {
+        for (Task child : task.getChildren()) {
+            text.append(depth).append(child.isDone() ? " x" : " -").append(child.is(Flag.IMPORTANT) ? "! " : "  ")
+                    .append(child.getText()).append('\n');
+            describe(child, depth + 1, text);
+        }
+    }
+
+}
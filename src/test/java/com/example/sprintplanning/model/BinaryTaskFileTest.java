@@ -0,0 +1,95 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTaskFileTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsWrittenWeek() throws IOException {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            File weekFile = folder.resolve("2024-01-" + (10 + round) + ".xml").toFile();
+            Tasks week = RandomWeeks.week(random, 1 + random.nextInt(500));
+            assertTrue(writeWithCache(weekFile, week));
+
+            Tasks read = BinaryTaskFile.read(weekFile);
+            assertNotNull(read);
+            RandomWeeks.assertSameTree(week.getRoot(), read.getRoot());
+        }
+    }
+
+    @Test
+    void readsSubtreeByPath() throws IOException {
+        Random random = new Random(4);
+        File weekFile = folder.resolve("2024-02-05.xml").toFile();
+        Tasks week = RandomWeeks.week(random, 300);
+        writeWithCache(weekFile, week);
+
+        for (Task task : RandomWeeks.tasks(week.getRoot())) {
+            Task read = BinaryTaskFile.readSubtree(weekFile, task.getPath());
+            assertNotNull(read);
+            RandomWeeks.assertSameTree(task, read);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> BinaryTaskFile.readSubtree(weekFile, new int[] { week.getTasks().size() }));
+    }
+
+    @Test
+    void readsEmptyWeek() throws IOException {
+        File weekFile = folder.resolve("2024-03-04.xml").toFile();
+        writeWithCache(weekFile, new Tasks());
+
+        Tasks read = BinaryTaskFile.read(weekFile);
+        assertNotNull(read);
+        assertTrue(read.getTasks().isEmpty());
+    }
+
+    @Test
+    void ignoresCacheOfChangedXml() throws IOException {
+        File weekFile = folder.resolve("2024-04-01.xml").toFile();
+        Tasks week = RandomWeeks.week(new Random(5), 20);
+        writeWithCache(weekFile, week);
+
+        week.getTasks().get(0).setText("Geändert");
+        try (OutputStream out = Files.newOutputStream(weekFile.toPath())) {
+            TaskCodec.getDefault().write(week, out);
+        }
+        assertNull(BinaryTaskFile.read(weekFile));
+        assertNull(BinaryTaskFile.readSubtree(weekFile, new int[] { 0 }));
+    }
+
+    @Test
+    void ignoresDamagedCache() throws IOException {
+        File weekFile = folder.resolve("2024-05-06.xml").toFile();
+        writeWithCache(weekFile, RandomWeeks.week(new Random(6), 20));
+
+        Path cache = BinaryTaskFile.fileFor(weekFile);
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, Arrays.copyOf(bytes, 20));
+        assertNull(BinaryTaskFile.read(weekFile));
+
+        bytes[0] ^= 1;
+        Files.write(cache, bytes);
+        assertNull(BinaryTaskFile.read(weekFile));
+    }
+
+    // Das XML wird geschrieben wie beim Speichern, der Cache mit dessen Zeit und Größe
+    private static boolean writeWithCache(File weekFile, Tasks week) throws IOException {
+        try (OutputStream out = Files.newOutputStream(weekFile.toPath())) {
+            TaskCodec.getDefault().write(week, out);
+        }
+        long xmlTime = Files.getLastModifiedTime(weekFile.toPath()).to(NANOSECONDS);
+        return BinaryTaskFile.write(weekFile, week.getRoot(), xmlTime, Files.size(weekFile.toPath()));
+    }
+
+}
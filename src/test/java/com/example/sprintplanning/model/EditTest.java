@@ -0,0 +1,100 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ein Journal wird durch Dekodieren und erneutes Anwenden seiner Zeilen wiederhergestellt
+class EditTest {
+
+    @Test
+    void encodesPathAndEscapedValue() {
+        Edit edit = Edit.rename(new int[] { 0, 2, 1 }, "a\tb\nc\rd\\e");
+        assertEquals("RENAME\t0.2.1\ta\\tb\\nc\\rd\\\\e", edit.encode());
+
+        Edit decoded = Edit.decode(edit.encode());
+        assertEquals(Edit.Kind.RENAME, decoded.kind());
+        assertArrayEquals(new int[] { 0, 2, 1 }, decoded.path());
+        assertEquals("a\tb\nc\rd\\e", decoded.value());
+    }
+
+    @Test
+    void decodesEditsWithoutValue() {
+        Edit decoded = Edit.decode(Edit.delete(new int[] { 3 }).encode());
+        assertEquals(Edit.Kind.DELETE, decoded.kind());
+        assertArrayEquals(new int[] { 3 }, decoded.path());
+        assertNull(decoded.value());
+
+        Edit top = Edit.decode(Edit.newTask(new int[0], "").encode());
+        assertArrayEquals(new int[0], top.path());
+        assertEquals("", top.value());
+    }
+
+    @Test
+    void rejectsInvalidLines() {
+        assertThrows(IllegalArgumentException.class, () -> Edit.decode("RENAME"));
+        assertThrows(IllegalArgumentException.class, () -> Edit.decode("UNKNOWN\t0"));
+    }
+
+    @Test
+    void onlyNewTakesTheEmptyPath() {
+        assertThrows(IllegalArgumentException.class, () -> Edit.rename(new int[0], "a"));
+        assertThrows(IllegalArgumentException.class, () -> Edit.decode("DELETE\t"));
+        assertEquals(Edit.Kind.NEW, Edit.newTask(new int[0], "a").kind());
+    }
+
+    @Test
+    void replayOfDecodedEditsGivesSameWeek() {
+        Random random = new Random(2);
+        for (int round = 0; round < 50; round++) {
+            Tasks week = RandomWeeks.week(random, 50);
+            Tasks replayed = week.copy();
+
+            List<String> journal = new ArrayList<>();
+            for (int step = 0; step < 200; step++) {
+                Edit edit = randomEdit(random, week.getRoot());
+                edit.applyTo(week.getRoot());
+                journal.add(edit.encode());
+            }
+
+            for (String line : journal) {
+                Edit edit = Edit.decode(line);
+                assertEquals(line, edit.encode());
+                edit.applyTo(replayed.getRoot());
+            }
+            RandomWeeks.assertSameTree(week.getRoot(), replayed.getRoot());
+        }
+    }
+
+    private static Edit randomEdit(Random random, Task root) {
+        List<Task> all = RandomWeeks.tasks(root);
+        if (all.isEmpty() || random.nextInt(8) == 0) {
+            Task parent = all.isEmpty() || random.nextBoolean() ? root : all.get(random.nextInt(all.size()));
+            return Edit.newTask(parent.getPath(), text(random));
+        }
+
+        int[] path = all.get(random.nextInt(all.size())).getPath();
+        return switch (random.nextInt(7)) {
+            case 0 -> Edit.delete(path);
+            case 1 -> Edit.indent(path);
+            case 2 -> Edit.outdent(path);
+            case 3 -> Edit.moveUp(path);
+            case 4 -> Edit.moveDown(path);
+            case 5 -> Edit.rename(path, text(random));
+            default -> Edit.flag(path, Flag.values()[random.nextInt(Flag.values().length)], random.nextBoolean());
+        };
+    }
+
+    // Texte mit allen Zeichen, die im Journal maskiert werden
+    private static String text(Random random) {
+        String chars = "ab \t\n\r\\.";
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            text.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return text.toString();
+    }
+
+}
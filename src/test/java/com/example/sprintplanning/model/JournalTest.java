@@ -0,0 +1,150 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ein Absturz an jeder Stelle eines Snapshots darf weder Einträge verlieren noch sie doppelt anwenden
+class JournalTest {
+
+    @TempDir
+    Path folder;
+
+    private File week;
+
+    @BeforeEach
+    void createWeek() throws IOException {
+        week = folder.resolve("2024-01-01.xml").toFile();
+        Files.writeString(week.toPath(), "<tasks/>");
+    }
+
+    @Test
+    void reopenReplaysAppendedEdits() throws IOException {
+        try (Journal journal = open(new Task(null))) {
+            journal.append(Edit.newTask(new int[0], "a"));
+            journal.append(List.of(Edit.newTask(new int[0], "b"), Edit.rename(new int[] { 0 }, "c")));
+        }
+        assertEquals(List.of("c", "b"), texts(reopen()));
+    }
+
+    @Test
+    void crashAfterRotateKeepsOldAndNewEdits() throws IOException {
+        Journal journal = open(new Task(null));
+        journal.append(Edit.newTask(new int[0], "a"));
+        journal.rotate();
+        journal.append(Edit.newTask(new int[0], "b"));
+        // Absturz: der Snapshot wurde nie geschrieben
+        journal.close();
+
+        assertEquals(List.of("a", "b"), texts(reopen()));
+        // Erst der nächste Snapshot enthält die alten Einträge
+        assertTrue(Files.exists(Journal.oldFileFor(week)));
+    }
+
+    @Test
+    void crashAfterReplacingXmlDoesNotReplayItsEdits() throws IOException {
+        Journal journal = open(new Task(null));
+        journal.append(Edit.newTask(new int[0], "a"));
+        journal.rotate();
+        journal.append(Edit.newTask(new int[0], "b"));
+        // Der Snapshot enthält "a"; Absturz vor snapshotWritten, das alte Journal bleibt liegen
+        Path snapshot = folder.resolve("snapshot.tmp");
+        Files.writeString(snapshot, "<tasks><task text=\"a\"/></tasks>");
+        journal.replaceXml(snapshot);
+        journal.close();
+        assertTrue(Files.exists(Journal.oldFileFor(week)));
+
+        Task root = new Task(null);
+        root.addChild(new Task("a"));
+        Journal.open(week, root, Journal.xmlState(week)).close();
+        assertEquals(List.of("a", "b"), texts(root));
+        assertFalse(Files.exists(Journal.oldFileFor(week)));
+    }
+
+    @Test
+    void failedSnapshotKeepsEditsForTheNextOne() throws IOException {
+        try (Journal journal = open(new Task(null))) {
+            journal.append(Edit.newTask(new int[0], "a"));
+            journal.rotate();
+            journal.append(Edit.newTask(new int[0], "b"));
+            journal.snapshotFailed();
+
+            // Die neuen Einträge werden an das alte Journal angehängt
+            journal.rotate();
+            journal.snapshotFailed();
+            assertEquals(List.of("NEW\t\ta", "NEW\t\tb"), encoded(journal.edits()));
+        }
+        assertEquals(List.of("a", "b"), texts(reopen()));
+    }
+
+    @Test
+    void foreignAppendIsReportedAndBlocksRotation() throws IOException {
+        try (Journal journal = open(new Task(null))) {
+            journal.append(Edit.newTask(new int[0], "a"));
+            assertFalse(journal.isChangedExternally());
+
+            Files.writeString(Journal.fileFor(week), Edit.newTask(new int[0], "b").encode() + '\n', StandardCharsets.UTF_8, APPEND);
+            assertTrue(journal.isChangedExternally());
+            assertThrows(IOException.class, journal::rotate);
+        }
+        assertEquals(List.of("a", "b"), texts(reopen()));
+    }
+
+    @Test
+    void secondOpenerIsLockedOut() throws IOException {
+        Journal journal = open(new Task(null));
+        assertThrows(Journal.LockedException.class, () -> open(new Task(null)));
+        journal.close();
+        // Nach dem Schließen ist die Woche wieder frei
+        open(new Task(null)).close();
+    }
+
+    @Test
+    void damagedEntryFailsTheOpen() throws IOException {
+        try (Journal journal = open(new Task(null))) {
+            journal.append(Edit.newTask(new int[0], "a"));
+        }
+        Files.writeString(Journal.fileFor(week), "RENAME\n", StandardCharsets.UTF_8, APPEND);
+
+        IOException e = assertThrows(IOException.class, () -> open(new Task(null)));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+        // Der fehlgeschlagene Versuch gibt die Sperre frei
+        Journal.Lock lock = Journal.tryLock(week);
+        assertNotNull(lock);
+        lock.close();
+    }
+
+    private Journal open(Task root) throws IOException {
+        return Journal.open(week, root, Journal.xmlState(week));
+    }
+
+    private Task reopen() throws IOException {
+        Task root = new Task(null);
+        open(root).close();
+        return root;
+    }
+
+    private static List<String> texts(Task root) {
+        List<String> texts = new ArrayList<>();
+        for (Task task : root.getChildren()) {
+            texts.add(task.getText());
+        }
+        return texts;
+    }
+
+    private static List<String> encoded(List<Edit> edits) {
+        List<String> lines = new ArrayList<>();
+        for (Edit edit : edits) {
+            lines.add(edit.encode());
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Die laufend nachgeführten Zähler müssen nach jeder Änderung einer vollständigen Zählung entsprechen
+class ProgressTest {
+
+    @Test
+    void countsDescendantsOnly() {
+        Task parent = new Task("Sprint");
+        parent.setUrgent(true);
+        Task done = new Task("Fertig");
+        done.setDone(true);
+        done.setImportant(true);
+        Task open = new Task("Offen");
+        open.setImportant(true);
+        open.setOptional(true);
+        parent.addChild(done);
+        parent.addChild(open);
+
+        assertEquals(new Progress(2, 1, 0, 1, 1, 0), parent.getProgress());
+        assertEquals(1, parent.getProgress().open());
+        assertEquals(new Progress(3, 1, 1, 1, 1, 0), Progress.of(List.of(parent)));
+        assertEquals(Progress.NONE, done.getProgress());
+    }
+
+    @Test
+    void matchesRecountAfterRandomChanges() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            Tasks tasks = RandomWeeks.week(random, 200);
+            Task root = tasks.getRoot();
+            for (int step = 0; step < 300; step++) {
+                change(random, root);
+                if (step % 25 == 0) {
+                    assertRecounted(root);
+                }
+            }
+            assertRecounted(root);
+            assertEquals(recount(root), Progress.of(tasks.getTasks()));
+        }
+    }
+
+    private static void change(Random random, Task root) {
+        List<Task> all = RandomWeeks.tasks(root);
+        if (all.isEmpty()) {
+            root.addChild(RandomWeeks.task(random));
+            return;
+        }
+        Task task = all.get(random.nextInt(all.size()));
+        switch (random.nextInt(7)) {
+            case 0 -> task.setFlags(random.nextInt(1 << Flag.values().length));
+            case 1 -> task.set(Flag.values()[random.nextInt(Flag.values().length)], random.nextBoolean());
+            case 2 -> {
+                Task added = RandomWeeks.task(random);
+                for (Task child : RandomWeeks.week(random, random.nextInt(5)).getTasks()) {
+                    added.addChild(child.copy());
+                }
+                task.addChild(random.nextInt(task.getChildren().size() + 1), added);
+            }
+            case 3 -> task.remove();
+            case 4 -> {
+                Task target = all.get(random.nextInt(all.size()));
+                if (!isAncestor(task, target)) {
+                    // Beim Verschieben unter den gleichen Parent fehlt der Task selbst
+                    int size = target.getChildren().size() - (task.getParent() == target ? 1 : 0);
+                    task.moveTo(target, random.nextInt(size + 1));
+                }
+            }
+            case 5 -> {
+                Task target = all.get(random.nextInt(all.size()));
+                if (!isAncestor(task, target) && !task.getChildren().isEmpty()) {
+                    task.moveChildrenTo(random.nextInt(task.getChildren().size()), target);
+                }
+            }
+            default -> task.moveTo(random.nextInt(task.getParent().getChildren().size()));
+        }
+    }
+
+    private static boolean isAncestor(Task task, Task of) {
+        for (Task ancestor = of; ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor == task) return true;
+        }
+        return false;
+    }
+
+    private static void assertRecounted(Task root) {
+        assertEquals(recount(root), root.getProgress(), "Root");
+        for (Task task : RandomWeeks.tasks(root)) {
+            assertEquals(recount(task), task.getProgress(), () -> "Task at " + Arrays.toString(task.getPath()));
+        }
+    }
+
+    // Vollständige Zählung der Nachkommen, unabhängig von Progress.addTask
+    private static Progress recount(Task task) {
+        int tasks = 0, done = 0, urgent = 0, important = 0, optional = 0, obsolete = 0;
+        for (Task descendant : RandomWeeks.tasks(task)) {
+            tasks++;
+            if (descendant.isDone()) {
+                done++;
+                continue;
+            }
+            if (descendant.isUrgent()) urgent++;
+            if (descendant.isImportant()) important++;
+            if (descendant.isOptional()) optional++;
+            if (descendant.isObsolete()) obsolete++;
+        }
+        return new Progress(tasks, done, urgent, important, optional, obsolete);
+    }
+
+}
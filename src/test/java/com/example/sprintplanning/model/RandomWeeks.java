@@ -0,0 +1,66 @@
+package com.example.sprintplanning.model;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Zufällige Wochen für die Tests; wenige verschiedene Texte, damit gleiche Texte häufig vorkommen
+final class RandomWeeks {
+
+    private static final String[] TEXTS = { "Review", "Tests", "Doku", "Deployment", "Meeting", "Ärger mit \"Umlauten\"", "<b> & </b>", "" };
+
+    private RandomWeeks() {
+    }
+
+    static Tasks week(Random random, int size) {
+        Tasks tasks = new Tasks();
+        List<Task> all = new ArrayList<>();
+        all.add(tasks.getRoot());
+        for (int i = 0; i < size; i++) {
+            Task parent = all.get(random.nextInt(all.size()));
+            Task task = task(random);
+            parent.addChild(random.nextInt(parent.getChildren().size() + 1), task);
+            all.add(task);
+        }
+        return tasks;
+    }
+
+    static Task task(Random random) {
+        Task task = new Task(random.nextInt(20) == 0 ? null : TEXTS[random.nextInt(TEXTS.length)]);
+        task.setFlags(random.nextInt(1 << Flag.values().length));
+        return task;
+    }
+
+    // Alle Tasks unterhalb von root in Vorordnung, ohne root
+    static List<Task> tasks(Task root) {
+        List<Task> tasks = new ArrayList<>();
+        Deque<Task> stack = new ArrayDeque<>();
+        for (int i = root.getChildren().size() - 1; i >= 0; i--) {
+            stack.push(root.getChildren().get(i));
+        }
+        while (!stack.isEmpty()) {
+            Task task = stack.pop();
+            tasks.add(task);
+            for (int i = task.getChildren().size() - 1; i >= 0; i--) {
+                stack.push(task.getChildren().get(i));
+            }
+        }
+        return tasks;
+    }
+
+    // Alle Tasks gleich in Text, Flags und Kindern
+    static void assertSameTree(ReadOnlyTask expected, ReadOnlyTask actual) {
+        assertSameTree(expected, actual, 0);
+    }
+
+    // Wie oben, die Flags in ignoredFlags werden nicht verglichen
+    static void assertSameTree(ReadOnlyTask expected, ReadOnlyTask actual, int ignoredFlags) {
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getFlags() & ~ignoredFlags, actual.getFlags() & ~ignoredFlags, () -> "Flags of " + expected.getText());
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), () -> "Children of " + expected.getText());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameTree(expected.getChildren().get(i), actual.getChildren().get(i), ignoredFlags);
+        }
+    }
+
+}
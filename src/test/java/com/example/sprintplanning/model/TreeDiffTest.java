@@ -0,0 +1,125 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeDiffTest {
+
+    private static final int OPEN = Flag.OPEN.mask();
+
+    @Test
+    void convergesToTarget() {
+        Random random = new Random(8);
+        for (int round = 0; round < 200; round++) {
+            Tasks current = RandomWeeks.week(random, random.nextInt(100));
+            Tasks target = round % 2 == 0 ? RandomWeeks.week(random, random.nextInt(100)) : changed(random, current);
+
+            List<String> events = new ArrayList<>();
+            int changes = TreeDiff.apply(current.getRoot(), target.getRoot(), listener(events));
+
+            RandomWeeks.assertSameTree(target.getRoot(), current.getRoot(), OPEN);
+            assertTrue(events.size() <= changes);
+            assertEquals(0, TreeDiff.apply(current.getRoot(), target.getRoot(), listener(events)));
+        }
+    }
+
+    @Test
+    void convergesToSnapshot() {
+        Random random = new Random(9);
+        Tasks current = RandomWeeks.week(random, 300);
+        Tasks target = changed(random, current);
+
+        TreeDiff.apply(current.getRoot(), target.getRoot().snapshot(), listener(new ArrayList<>()));
+        RandomWeeks.assertSameTree(target.getRoot(), current.getRoot(), OPEN);
+    }
+
+    @Test
+    void keepsUnchangedTasks() {
+        Random random = new Random(10);
+        Tasks current = RandomWeeks.week(random, 200);
+        List<Task> before = RandomWeeks.tasks(current.getRoot());
+
+        Tasks target = current.copy();
+        Task changed = RandomWeeks.tasks(target.getRoot()).get(random.nextInt(before.size()));
+        changed.setFlags(changed.getFlags() ^ Flag.DONE.mask());
+
+        List<String> events = new ArrayList<>();
+        assertEquals(1, TreeDiff.apply(current.getRoot(), target.getRoot(), listener(events)));
+        assertTrue(events.isEmpty());
+
+        List<Task> after = RandomWeeks.tasks(current.getRoot());
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), after.get(i));
+        }
+    }
+
+    @Test
+    void keepsOpenFlag() {
+        Task current = new Task();
+        Task child = new Task("Offen");
+        child.setOpen(true);
+        current.addChild(child);
+        Task target = current.copy();
+        target.getChildren().get(0).setOpen(false);
+        target.getChildren().get(0).setDone(true);
+
+        TreeDiff.apply(current, target, listener(new ArrayList<>()));
+        assertSame(child, current.getChildren().get(0));
+        assertTrue(child.isOpen());
+        assertTrue(child.isDone());
+    }
+
+    @Test
+    void reportsInsertionsAtTheirIndex() {
+        Task current = new Task();
+        current.addChild(new Task("a"));
+        current.addChild(new Task("c"));
+        Task target = new Task();
+        for (String text : List.of("a", "b", "c", "d")) {
+            target.addChild(new Task(text));
+        }
+
+        List<String> events = new ArrayList<>();
+        assertEquals(2, TreeDiff.apply(current, target, listener(events)));
+        assertEquals(List.of("added b at 1", "added d at 3"), events);
+    }
+
+    // Zeichnet die Änderungen auf und prüft, dass der gemeldete Index zum Baum passt
+    private static TreeDiff.Listener listener(List<String> events) {
+        return new TreeDiff.Listener() {
+            @Override
+            public void added(Task parent, int index) {
+                events.add("added " + parent.getChildren().get(index).getText() + " at " + index);
+            }
+
+            @Override
+            public void removed(Task parent, int index) {
+                assertTrue(index <= parent.getChildren().size());
+                events.add("removed at " + index);
+            }
+        };
+    }
+
+    // Eine Kopie mit einigen zufälligen Änderungen, wie nach einer Bearbeitung in einem anderen Programm
+    private static Tasks changed(Random random, Tasks week) {
+        Tasks copy = week.copy();
+        for (int i = random.nextInt(20); i > 0; i--) {
+            List<Task> all = RandomWeeks.tasks(copy.getRoot());
+            if (all.isEmpty()) break;
+            Task task = all.get(random.nextInt(all.size()));
+            switch (random.nextInt(5)) {
+                case 0 -> task.remove();
+                case 1 -> task.setText(RandomWeeks.task(random).getText());
+                case 2 -> task.setFlags(random.nextInt(1 << Flag.values().length));
+                case 3 -> task.getParent().addChild(random.nextInt(task.getParent().getChildren().size() + 1), RandomWeeks.task(random));
+                default -> task.moveTo(random.nextInt(task.getParent().getChildren().size()));
+            }
+        }
+        return copy;
+    }
+
+}
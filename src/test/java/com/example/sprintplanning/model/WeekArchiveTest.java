@@ -0,0 +1,109 @@
+package com.example.sprintplanning.model;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeekArchiveTest {
+
+    @TempDir
+    Path folder;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void readsPackedWeeks() throws IOException {
+        Map<String, byte[]> xmls = new TreeMap<>();
+        Map<String, FileTime> times = new TreeMap<>();
+        List<File> weekFiles = new ArrayList<>();
+        for (String week : List.of("2024-01-01.xml", "2024-01-08.xml", "2024-01-15.xml", "2023-12-25.xml")) {
+            File weekFile = writeWeek(week);
+            weekFiles.add(weekFile);
+            xmls.put(week, Files.readAllBytes(weekFile.toPath()));
+            times.put(week, Files.getLastModifiedTime(weekFile.toPath()));
+        }
+
+        assertEquals(weekFiles.size(), WeekArchive.pack(weekFiles).size());
+        for (File weekFile : weekFiles) {
+            assertFalse(weekFile.exists());
+            assertTrue(WeekArchive.exists(weekFile));
+        }
+        assertEquals(xmls.keySet(), WeekArchive.weeks(folder));
+        assertTrue(Files.exists(folder.resolve("2023.pack")));
+        assertTrue(Files.exists(folder.resolve("2024.pack")));
+
+        for (String week : xmls.keySet()) {
+            WeekArchive archive = WeekArchive.forWeek(folder.resolve(week).toFile());
+            assertNotNull(archive);
+            assertArrayEquals(xmls.get(week), archive.read(week).readAllBytes());
+            assertEquals(xmls.get(week).length, archive.getSize(week));
+            assertEquals(times.get(week).toInstant(), archive.getTime(week).toInstant());
+        }
+    }
+
+    @Test
+    void keepsArchivedWeeksWhenPackingMore() throws IOException {
+        File first = writeWeek("2024-02-05.xml");
+        byte[] firstXml = Files.readAllBytes(first.toPath());
+        WeekArchive.pack(List.of(first));
+
+        File second = writeWeek("2024-02-12.xml");
+        byte[] secondXml = Files.readAllBytes(second.toPath());
+        WeekArchive.pack(List.of(second));
+
+        WeekArchive archive = WeekArchive.open(folder.resolve("2024.pack"));
+        assertEquals(Set.of("2024-02-05.xml", "2024-02-12.xml"), archive.getWeeks());
+        assertArrayEquals(firstXml, archive.read("2024-02-05.xml").readAllBytes());
+        assertArrayEquals(secondXml, archive.read("2024-02-12.xml").readAllBytes());
+    }
+
+    @Test
+    void readsArchivedWeekAsTasks() throws IOException {
+        Tasks week = RandomWeeks.week(random, 100);
+        File weekFile = folder.resolve("2024-03-04.xml").toFile();
+        try (OutputStream out = Files.newOutputStream(weekFile.toPath())) {
+            TaskCodec.getDefault().write(week, out);
+        }
+        WeekArchive.pack(List.of(weekFile));
+
+        try (InputStream in = WeekArchive.forWeek(weekFile).read(weekFile.getName())) {
+            RandomWeeks.assertSameTree(week.getRoot(), TaskCodec.getDefault().read(in).getRoot());
+        }
+    }
+
+    @Test
+    void skipsWeeksWithUnsavedEdits() throws IOException {
+        File edited = writeWeek("2024-04-01.xml");
+        File closed = writeWeek("2024-04-08.xml");
+        try (Journal journal = Journal.open(edited, Journal.xmlState(edited))) {
+            journal.append(Edit.rename(new int[] { 0 }, "Ungespeichert"));
+        }
+
+        assertEquals(List.of(closed), WeekArchive.pack(List.of(edited, closed)));
+        assertTrue(edited.exists());
+        assertEquals(Set.of("2024-04-08.xml"), WeekArchive.weeks(folder));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = folder.resolve("2024.pack");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> WeekArchive.open(file));
+        assertNull(WeekArchive.open(folder.resolve("2025.pack")));
+    }
+
+    private File writeWeek(String name) throws IOException {
+        File weekFile = folder.resolve(name).toFile();
+        try (OutputStream out = Files.newOutputStream(weekFile.toPath())) {
+            TaskCodec.getDefault().write(RandomWeeks.week(random, 1 + random.nextInt(200)), out);
+        }
+        return weekFile;
+    }
+
+}